@@ -0,0 +1,215 @@
+package com.pongsky.cloud.benchmark.auth;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.pongsky.cloud.security.VerifiedTokenCache;
+import com.pongsky.cloud.utils.jwt.JwtUtils;
+import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
+import com.pongsky.cloud.web.request.AuthUtils;
+import com.pongsky.cloud.web.request.SystemConfigUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 签发、校验以及 AuthUtils 解析
+ * <p>
+ * requestLookups 通过 {@link DecodeCounter} 额外输出一次请求内的 Token 解码次数（decodes / requests）；
+ * 有效 Token 只在已校验 Token 缓存未命中、进行签名校验时解码一次，解码次数即缓存未命中次数，
+ * 在基准测试内通过缓存统计读取，不在生产代码中埋点
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthBenchmark {
+
+    private static final String ACTIVE = "local";
+
+    private static final String APPLICATION_NAME = "Cloud";
+
+    private String token;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        SystemConfigUtils systemConfigUtils = new SystemConfigUtils();
+        systemConfigUtils.setActive(ACTIVE);
+        systemConfigUtils.setApplicationName(APPLICATION_NAME);
+        token = JwtUtils.createAccessToken("1", "USER", ACTIVE, APPLICATION_NAME);
+        request = new MockHttpServletRequest();
+        request.addHeader(AuthUtils.AUTHORIZATION, AuthUtils.TOKEN_PREFIX + token);
+    }
+
+    @Benchmark
+    public String createAccessToken() {
+        return JwtUtils.createAccessToken("1", "USER", ACTIVE, APPLICATION_NAME);
+    }
+
+    @Benchmark
+    public Object verify() {
+        return JwtUtils.verify(token);
+    }
+
+    @Benchmark
+    public Object cachedVerify() {
+        return VerifiedTokenCache.verify(token);
+    }
+
+    /**
+     * 一次请求内首次解析（不命中 request attribute）
+     *
+     * @return 用户信息
+     */
+    @Benchmark
+    public AuthInfo getUser() {
+        request.removeAttribute(AuthUtils.AUTH_INFO);
+        return AuthUtils.getUser(request);
+    }
+
+    /**
+     * 优化前的解析方式：每次读取 claim 都重新解码，并且每次校验都重新创建校验器
+     *
+     * @return 用户信息
+     */
+    @Benchmark
+    public AuthInfo legacyGetUser() {
+        try {
+            String authorization = legacyGetAuthorization();
+            AuthInfo authInfo = new AuthInfo()
+                    .setId(JwtUtils.getId(authorization))
+                    .setRole(JwtUtils.getRole(authorization));
+            JWT.require(Algorithm.HMAC256("PongSky")).build().verify(legacyGetAuthorization());
+            return authInfo;
+        } catch (Exception e) {
+            return AuthInfo.PUBLIC_INFO;
+        }
+    }
+
+    /**
+     * 一次请求内 filter、aspect、controller 依次获取用户信息，统计 JwtUtils 解码 Token 的次数
+     *
+     * @param lookup  请求
+     * @param counter 解码次数
+     * @return 用户ID
+     */
+    @Benchmark
+    public Long requestLookups(RequestLookup lookup, DecodeCounter counter) {
+        if (lookup.tokenCache == TokenCache.MISS) {
+            VerifiedTokenCache.invalidateAll();
+        }
+        MockHttpServletRequest request = lookup.request;
+        request.removeAttribute(AuthUtils.AUTH_INFO);
+        double decodes = lookup.cacheMisses.count();
+        // AuthenticationFilter
+        AuthUtils.getUser(request);
+        // RestControllerAround、RateLimitAround
+        AuthUtils.getUser(request);
+        AuthUtils.getUser(request);
+        // controller
+        Long userId = AuthUtils.getAuthUserId(request);
+        counter.decodes += (long) (lookup.cacheMisses.count() - decodes);
+        counter.requests++;
+        return userId;
+    }
+
+    private String legacyGetAuthorization() {
+        String authorization = request.getHeader(AuthUtils.AUTHORIZATION).replace(AuthUtils.TOKEN_PREFIX, "");
+        if (!JwtUtils.getActive(authorization).equals(SystemConfigUtils.getActive())) {
+            throw new IllegalStateException("错误 ACTIVE");
+        }
+        if (!JwtUtils.getApplication(authorization).equals(SystemConfigUtils.getApplicationName())) {
+            throw new IllegalStateException("错误 APPLICATION");
+        }
+        return authorization;
+    }
+
+    /**
+     * 已校验 Token 缓存命中情况
+     */
+    public enum TokenCache {
+
+        /**
+         * 命中缓存
+         */
+        HIT,
+
+        /**
+         * 每次请求前清空缓存，模拟首次出现的 Token
+         */
+        MISS
+
+    }
+
+    /**
+     * 一次请求
+     */
+    @State(Scope.Thread)
+    public static class RequestLookup {
+
+        @Param({"HIT", "MISS"})
+        private TokenCache tokenCache;
+
+        private MockHttpServletRequest request;
+
+        /**
+         * 已校验 Token 缓存未命中次数
+         */
+        private FunctionCounter cacheMisses;
+
+        @Setup
+        public void setup() {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            new VerifiedTokenCache(meterRegistry);
+            cacheMisses = meterRegistry.get("cache.gets")
+                    .tag("cache", VerifiedTokenCache.CACHE_NAME)
+                    .tag("result", "miss")
+                    .functionCounter();
+            request = new MockHttpServletRequest();
+            request.addHeader(AuthUtils.AUTHORIZATION, AuthUtils.TOKEN_PREFIX
+                    + JwtUtils.createAccessToken("1", "USER", ACTIVE, APPLICATION_NAME));
+        }
+
+    }
+
+    /**
+     * Token 解码次数，每轮迭代重新计数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class DecodeCounter {
+
+        /**
+         * 请求次数
+         */
+        public long requests;
+
+        /**
+         * Token 解码次数
+         */
+        public long decodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0L;
+            decodes = 0L;
+        }
+
+    }
+
+}
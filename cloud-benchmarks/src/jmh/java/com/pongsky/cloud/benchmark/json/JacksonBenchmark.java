@@ -0,0 +1,72 @@
+package com.pongsky.cloud.benchmark.json;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pongsky.cloud.entity.user.vo.UserVo;
+import com.pongsky.cloud.model.dto.PageQuery;
+import com.pongsky.cloud.model.vo.PageResponse;
+import com.pongsky.cloud.response.GlobalResult;
+import com.pongsky.cloud.utils.jackson.JacksonUtils;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON_MAPPER 序列化统一返回结果
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JacksonBenchmark {
+
+    /**
+     * 分页数量
+     */
+    private static final int PAGE_SIZE = 20;
+
+    private GlobalResult<UserVo> user;
+
+    private GlobalResult<PageResponse<UserVo>> page;
+
+    @Setup
+    public void setup() {
+        List<UserVo> users = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            users.add(newUser(i));
+        }
+        user = new GlobalResult<>(users.get(0));
+        page = new GlobalResult<>(new PageResponse<>(users, new PageQuery(0, PAGE_SIZE), 1000L));
+    }
+
+    @Benchmark
+    public byte[] user() throws JsonProcessingException {
+        return JacksonUtils.JSON_MAPPER.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return JacksonUtils.JSON_MAPPER.writeValueAsBytes(page);
+    }
+
+    private static UserVo newUser(int i) {
+        return new UserVo()
+                .setId(1360000000000000000L + i)
+                .setRole(AuthRole.USER)
+                .setUsername("user" + i)
+                .setName("用户" + i)
+                .setPhone("1380000" + String.format("%04d", i))
+                .setIsDisable(0);
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.pongsky.cloud.benchmark.json;
+
+import com.pongsky.cloud.entity.user.dos.UserDo;
+import com.pongsky.cloud.entity.user.vo.UserVo;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orika 映射 UserDo 至 UserVo
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrikaBenchmark {
+
+    /**
+     * 分页数量
+     */
+    private static final int PAGE_SIZE = 20;
+
+    private MapperFacade mapperFacade;
+
+    private UserDo user;
+
+    private List<UserDo> users;
+
+    @Setup
+    public void setup() {
+        mapperFacade = new DefaultMapperFactory.Builder().build().getMapperFacade();
+        users = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            users.add(new UserDo()
+                    .setId(1360000000000000000L + i)
+                    .setRole(AuthRole.USER)
+                    .setUsername("user" + i)
+                    .setPassword("$2a$10$ps7WiT7B.omuLvsPVBi2aePOitjsprzJ5v.Bgxkb889DGkWjROQaO")
+                    .setName("用户" + i)
+                    .setPhone("1380000" + String.format("%04d", i))
+                    .setIsDisable(0)
+                    .setDataVersion(0L));
+        }
+        user = users.get(0);
+        // 预先生成映射类，避免计入首次映射
+        mapperFacade.map(user, UserVo.class);
+    }
+
+    @Benchmark
+    public UserVo map() {
+        return mapperFacade.map(user, UserVo.class);
+    }
+
+    @Benchmark
+    public List<UserVo> mapAsList() {
+        return mapperFacade.mapAsList(users, UserVo.class);
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.pongsky.cloud.benchmark.password;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.pongsky.cloud.entity.user.vo.UserVo;
+import com.pongsky.cloud.exception.FrequencyException;
+import com.pongsky.cloud.response.GlobalResult;
+import com.pongsky.cloud.service.PasswordService;
+import com.pongsky.cloud.utils.jackson.JacksonUtils;
+import com.pongsky.cloud.utils.jwt.JwtUtils;
+import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import com.pongsky.cloud.web.request.AuthUtils;
+import com.pongsky.cloud.web.request.SystemConfigUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * 登录高峰：64 个请求线程同时校验密码，BCrypt 线程池满载后快速拒绝，同时 4 个线程处理非登录请求
+ * <p>
+ * BCrypt 线程池默认只占一半 CPU 核数，余下的核数留给非登录请求，线程池满载后的登录请求应被快速拒绝而不是排队；
+ * 非登录请求为一次普通接口的处理：AuthUtils 解析 Token（命中已校验 Token 缓存）并序列化统一返回结果。
+ * Throughput 模式下 accepted、rejected 分别为校验完成、被拒绝的次数，拒绝时延应远低于 BCrypt 计算耗时；
+ * SampleTime 模式下对比 storm:cheapRequest 与 idle:cheapRequestWithoutStorm 的 p0.99，
+ * 登录高峰期间非登录请求的 p99 应与空闲时基本持平
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+public class PasswordBenchmark {
+
+    private static final String PASSWORD = "123456";
+
+    private static final String ACTIVE = "local";
+
+    private static final String APPLICATION_NAME = "Cloud";
+
+    /**
+     * BCrypt 强度
+     */
+    @Param({"10"})
+    private int strength;
+
+    /**
+     * BCrypt 线程数，0 表示 CPU 核数的一半（至少 1 个）
+     */
+    @Param({"0"})
+    private int poolSize;
+
+    /**
+     * 队列容量，0 表示线程数 * 4
+     */
+    @Param({"0"})
+    private int queueCapacity;
+
+    private PasswordService passwordService;
+
+    private String encodedPassword;
+
+    @Setup
+    public void setup() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encodedPassword = encoder.encode(PASSWORD);
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        passwordService = new PasswordService(encoder, new SimpleMeterRegistry(),
+                threads, queueCapacity, Duration.ofSeconds(3));
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordService.destroy();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(64)
+    public boolean loginStorm(Counters counters) {
+        try {
+            boolean matches = passwordService.matches(PASSWORD, encodedPassword);
+            counters.accepted++;
+            return matches;
+        } catch (FrequencyException e) {
+            counters.rejected++;
+            return false;
+        }
+    }
+
+    /**
+     * 登录高峰期间的非登录请求
+     */
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(4)
+    public byte[] cheapRequest(CheapRequest request) throws JsonProcessingException {
+        return request.handle();
+    }
+
+    /**
+     * 没有登录请求时的非登录请求，作为对照
+     */
+    @Benchmark
+    @Group("idle")
+    @GroupThreads(4)
+    public byte[] cheapRequestWithoutStorm(CheapRequest request) throws JsonProcessingException {
+        return request.handle();
+    }
+
+    /**
+     * 非登录请求：解析 Token 并序列化统一返回结果
+     */
+    @State(Scope.Thread)
+    public static class CheapRequest {
+
+        private MockHttpServletRequest request;
+
+        private UserVo user;
+
+        @Setup
+        public void setup() {
+            SystemConfigUtils systemConfigUtils = new SystemConfigUtils();
+            systemConfigUtils.setActive(ACTIVE);
+            systemConfigUtils.setApplicationName(APPLICATION_NAME);
+            request = new MockHttpServletRequest();
+            request.addHeader(AuthUtils.AUTHORIZATION, AuthUtils.TOKEN_PREFIX
+                    + JwtUtils.createAccessToken("1", AuthRole.USER_ROLE, ACTIVE, APPLICATION_NAME));
+            user = new UserVo()
+                    .setUsername("user")
+                    .setName("用户")
+                    .setIsDisable(0);
+        }
+
+        /**
+         * 处理一次请求
+         *
+         * @return 响应数据
+         * @throws JsonProcessingException 序列化异常
+         */
+        private byte[] handle() throws JsonProcessingException {
+            request.removeAttribute(AuthUtils.AUTH_INFO);
+            AuthInfo authInfo = AuthUtils.getUser(request);
+            return JacksonUtils.JSON_MAPPER.writeValueAsBytes(new GlobalResult<>(user
+                    .setId(authInfo.getId())
+                    .setRole(authInfo.getRole())));
+        }
+
+    }
+
+    /**
+     * 每个线程的校验结果计数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long accepted;
+
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted = 0L;
+            rejected = 0L;
+        }
+
+    }
+
+}
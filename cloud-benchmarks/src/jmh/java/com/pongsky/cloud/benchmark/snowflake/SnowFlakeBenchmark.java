@@ -0,0 +1,74 @@
+package com.pongsky.cloud.benchmark.snowflake;
+
+import com.pongsky.cloud.utils.snowflake.SnowFlakeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 雪花算法产生ID
+ * <p>
+ * 单节点每毫秒最多 4096 个ID，高并发下吞吐量受时钟限制，主要对比线程竞争下的开销
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class SnowFlakeBenchmark {
+
+    /**
+     * 批量产生ID数量
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final SnowFlakeUtils snowFlakeUtils = new SnowFlakeUtils(1L);
+
+    private final SynchronizedSnowFlakeUtils synchronizedSnowFlakeUtils = new SynchronizedSnowFlakeUtils();
+
+    @Benchmark
+    @Threads(1)
+    public long casThreads1() {
+        return snowFlakeUtils.getId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long casThreads8() {
+        return snowFlakeUtils.getId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long casThreads64() {
+        return snowFlakeUtils.getId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long synchronizedThreads1() {
+        return synchronizedSnowFlakeUtils.getId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long synchronizedThreads8() {
+        return synchronizedSnowFlakeUtils.getId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long synchronizedThreads64() {
+        return synchronizedSnowFlakeUtils.getId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long[] batchThreads8() {
+        return snowFlakeUtils.getIds(BATCH_SIZE);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.pongsky.cloud.benchmark.snowflake;
+
+/**
+ * synchronized 实现的雪花算法（优化前的 SnowFlakeUtils，仅作为基准对比）
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class SynchronizedSnowFlakeUtils {
+
+    private final static long START_STAMP = 1612886400000L;
+
+    private final static long SEQUENCE_BIT = 12;
+
+    private final static long MACHINE_BIT = 5;
+
+    private final static long DATACENTER_BIT = 5;
+
+    private final static long MAX_SEQUENCE = ~(-1L << SEQUENCE_BIT);
+
+    private final static long MACHINE_LEFT = SEQUENCE_BIT;
+    private final static long DATACENTER_LEFT = SEQUENCE_BIT + MACHINE_BIT;
+    private final static long TIMESTAMP_LEFT = DATACENTER_LEFT + DATACENTER_BIT;
+
+    private final static long DATACENTER_ID = 1L;
+
+    private final static long MACHINE_ID = 1L;
+
+    private long sequence = 0L;
+
+    private long lastStamp = -1L;
+
+    public synchronized long getId() {
+        long currStamp = getNewStamp();
+        if (currStamp < lastStamp) {
+            throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
+        }
+
+        if (currStamp == lastStamp) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0L) {
+                currStamp = getNextMill();
+            }
+        } else {
+            sequence = 0L;
+        }
+
+        lastStamp = currStamp;
+
+        return (currStamp - START_STAMP) << TIMESTAMP_LEFT
+                | DATACENTER_ID << DATACENTER_LEFT
+                | MACHINE_ID << MACHINE_LEFT
+                | sequence;
+    }
+
+    private long getNextMill() {
+        long mill = getNewStamp();
+        while (mill <= lastStamp) {
+            mill = getNewStamp();
+        }
+        return mill;
+    }
+
+    private long getNewStamp() {
+        return System.currentTimeMillis();
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.pongsky.cloud.benchmark.web;
+
+import com.pongsky.cloud.model.annotation.Meaning;
+import com.pongsky.cloud.web.handler.FieldMeanings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 校验失败时生成字段错误信息，与每次反射读取字段、注解的旧实现对比
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FieldMessagesBenchmark {
+
+    private BindingResult bindingResult;
+
+    @Setup
+    public void setup() {
+        bindingResult = new BeanPropertyBindingResult(new OrderDto(), "orderDto");
+        bindingResult.addError(new FieldError("orderDto", "name", "不能为空"));
+        bindingResult.addError(new FieldError("orderDto", "phone", "格式错误"));
+        bindingResult.addError(new FieldError("orderDto", "remark", "长度不能超过 200"));
+        bindingResult.addError(new FieldError("orderDto", "items[0].price", "必须大于 0"));
+        bindingResult.addError(new FieldError("orderDto", "items[1].count", "必须大于 0"));
+        // 预先解析，避免计入首次解析
+        FieldMeanings.getFieldMessages(bindingResult);
+    }
+
+    @Benchmark
+    public String getFieldMessages() {
+        return FieldMeanings.getFieldMessages(bindingResult);
+    }
+
+    @Benchmark
+    public String legacyGetFieldMessages() {
+        String escapeInterval = "\\.";
+        String interval = ".";
+        String listStart = "java.util.List<";
+        StringBuilder stringBuilder = new StringBuilder("[ ");
+        if (bindingResult.getTarget() == null) {
+            bindingResult.getFieldErrors().forEach(error -> appendErrorMessage(stringBuilder,
+                    error.getField(), error.getDefaultMessage()));
+        } else {
+            bindingResult.getFieldErrors().forEach(error -> {
+                String filedName = error.getField();
+                Field field = Arrays.stream(bindingResult.getTarget().getClass().getDeclaredFields())
+                        .filter(f -> f.getName().equals(error.getField()))
+                        .findFirst()
+                        .orElse(null);
+                if (field == null) {
+                    appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
+                    return;
+                }
+                Meaning meaning = field.getAnnotation(Meaning.class);
+                if (meaning != null) {
+                    filedName = meaning.value();
+                }
+                if (!(filedName.split(escapeInterval).length > 1 && meaning != null)) {
+                    appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
+                    return;
+                }
+                int i = filedName.lastIndexOf(interval, (filedName.lastIndexOf(interval) - 1)) + 1;
+                String[] split = filedName.substring(i).split(escapeInterval);
+                filedName = split[0].substring(0, filedName.lastIndexOf("["));
+                String typeName = field.getGenericType().getTypeName();
+                if (!(typeName.startsWith(listStart))) {
+                    appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
+                    return;
+                }
+                typeName = typeName.substring(listStart.length(), typeName.lastIndexOf(">"));
+                try {
+                    Optional<Meaning> optionalMeaning = Arrays.stream(Class.forName(typeName).getDeclaredFields())
+                            .filter(f -> f.getName().equals(split[1]))
+                            .map(f -> f.getAnnotation(Meaning.class))
+                            .findFirst();
+                    if (optionalMeaning.isPresent()) {
+                        filedName += optionalMeaning.get().value();
+                    }
+                } catch (ClassNotFoundException e) {
+                    e.printStackTrace();
+                }
+                appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
+            });
+        }
+        return stringBuilder.append("]").toString();
+    }
+
+    private static void appendErrorMessage(StringBuilder stringBuilder, String filedName, String message) {
+        stringBuilder
+                .append(filedName)
+                .append(" ")
+                .append(message)
+                .append("; ");
+    }
+
+    public static class OrderDto {
+
+        @Meaning("姓名")
+        private String name;
+
+        @Meaning("手机号")
+        private String phone;
+
+        @Meaning("备注")
+        private String remark;
+
+        @Meaning("收货地址")
+        private String address;
+
+        @Meaning("商品")
+        private List<ItemDto> items;
+
+    }
+
+    public static class ItemDto {
+
+        @Meaning("商品ID")
+        private Long id;
+
+        @Meaning("价格")
+        private Long price;
+
+        @Meaning("数量")
+        private Integer count;
+
+    }
+
+}
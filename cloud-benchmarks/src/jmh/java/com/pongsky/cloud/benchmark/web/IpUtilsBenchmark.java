@@ -0,0 +1,69 @@
+package com.pongsky.cloud.benchmark.web;
+
+import com.pongsky.cloud.web.request.IpUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IpUtils 获取直连、代理、多级代理、本机请求的 IP
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IpUtilsBenchmark {
+
+    private MockHttpServletRequest direct;
+
+    private MockHttpServletRequest proxied;
+
+    private MockHttpServletRequest chained;
+
+    private MockHttpServletRequest loopback;
+
+    @Setup
+    public void setup() {
+        direct = new MockHttpServletRequest();
+        direct.setRemoteAddr("203.0.113.7");
+        proxied = new MockHttpServletRequest();
+        proxied.setRemoteAddr("10.0.0.2");
+        proxied.addHeader("x-forwarded-for", "203.0.113.7, 10.0.0.1, 10.0.0.2");
+        chained = new MockHttpServletRequest();
+        chained.setRemoteAddr("10.0.0.2");
+        chained.addHeader("x-forwarded-for",
+                "198.51.100.1, 203.0.113.7, 172.16.0.3, 192.168.1.4, fd00::5, 10.0.0.1");
+        loopback = new MockHttpServletRequest();
+        loopback.setRemoteAddr("127.0.0.1");
+    }
+
+    @Benchmark
+    public String direct() {
+        return IpUtils.getIp(direct);
+    }
+
+    @Benchmark
+    public String proxied() {
+        return IpUtils.getIp(proxied);
+    }
+
+    @Benchmark
+    public String chained() {
+        return IpUtils.getIp(chained);
+    }
+
+    @Benchmark
+    public String loopback() {
+        return IpUtils.getIp(loopback);
+    }
+
+}
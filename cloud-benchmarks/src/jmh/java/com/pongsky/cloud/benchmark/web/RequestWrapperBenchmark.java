@@ -0,0 +1,83 @@
+package com.pongsky.cloud.benchmark.web;
+
+import com.pongsky.cloud.web.filter.BodyBufferPool;
+import com.pongsky.cloud.web.filter.RequestWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RequestWrapper 在 controller 读取 body 时同步记录，随后获取记录的 body 用于日志
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestWrapperBenchmark {
+
+    /**
+     * body 内存阈值
+     */
+    private static final int SPILL_THRESHOLD = 256 * 1024;
+
+    /**
+     * body 最大缓存大小
+     */
+    private static final long MAX_BODY_SIZE = 100 * 1024 * 1024;
+
+    /**
+     * body 大小（字节）
+     */
+    @Param({"256", "16384", "1048576"})
+    private int size;
+
+    private byte[] body;
+
+    private final BodyBufferPool pool = new BodyBufferPool(256);
+
+    private final byte[] buffer = new byte[8192];
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder(size);
+        builder.append("{\"content\":\"");
+        while (builder.length() < size - 2) {
+            builder.append((char) ('a' + builder.length() % 26));
+        }
+        builder.append("\"}");
+        body = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void wrapAndRead(Blackhole blackhole) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/web/payment");
+        request.setContentType("application/json");
+        request.setContent(body);
+        RequestWrapper wrapper = new RequestWrapper(request, pool, SPILL_THRESHOLD, MAX_BODY_SIZE);
+        try {
+            ServletInputStream inputStream = wrapper.getInputStream();
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                blackhole.consume(length);
+            }
+            blackhole.consume(wrapper.getContentAsByteArray());
+        } finally {
+            wrapper.release();
+        }
+    }
+
+}
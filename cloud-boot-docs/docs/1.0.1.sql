@@ -0,0 +1,19 @@
+-- ----------------------------
+-- Index for user
+-- ----------------------------
+ALTER TABLE `cloud`.`user`
+    ADD KEY `index_updatedAt` (`updated_at`) USING BTREE;
+
+
+-- ----------------------------
+-- Table structure for worker_lease
+-- 仅使用标准 SQL，MySQL（cloud 库）与 H2 均可执行
+-- ----------------------------
+CREATE TABLE worker_lease
+(
+    worker_id    int          NOT NULL,
+    owner        varchar(100) NOT NULL,
+    expires_at   datetime(6)  NOT NULL,
+    data_version bigint       NOT NULL,
+    PRIMARY KEY (worker_id)
+);
@@ -0,0 +1,33 @@
+package com.pongsky.cloud.entity.user.dos;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author pengsenhao
+ * @create 2021-02-16
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class UserDisableDo {
+
+    /**
+     * 用户ID
+     */
+    private Long id;
+
+    /**
+     * 是否禁用
+     */
+    private Integer isDisable;
+
+    /**
+     * 修改时间
+     */
+    private LocalDateTime updatedAt;
+
+}
@@ -49,4 +49,9 @@ public class UserDo {
      */
     private Integer isDisable;
 
+    /**
+     * 数据版本号
+     */
+    private Long dataVersion;
+
 }
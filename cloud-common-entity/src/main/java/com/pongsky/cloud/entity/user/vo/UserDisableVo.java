@@ -0,0 +1,38 @@
+package com.pongsky.cloud.entity.user.vo;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * @author pengsenhao
+ * @create 2021-02-16
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class UserDisableVo {
+
+    /**
+     * 游标（毫秒时间戳），下次拉取增量时携带
+     */
+    private Long cursor;
+
+    /**
+     * 是否全量数据
+     */
+    private Boolean full;
+
+    /**
+     * 禁用的用户ID
+     */
+    private List<Long> disabledIds;
+
+    /**
+     * 启用的用户ID
+     */
+    private List<Long> enabledIds;
+
+}
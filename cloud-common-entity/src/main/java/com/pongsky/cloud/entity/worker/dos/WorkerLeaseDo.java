@@ -0,0 +1,38 @@
+package com.pongsky.cloud.entity.worker.dos;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author pengsenhao
+ * @create 2021-02-17
+ */
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(callSuper = false)
+public class WorkerLeaseDo {
+
+    /**
+     * 工作节点ID
+     */
+    private Integer workerId;
+
+    /**
+     * 持有者
+     */
+    private String owner;
+
+    /**
+     * 租约到期时间
+     */
+    private LocalDateTime expiresAt;
+
+    /**
+     * 数据版本号
+     */
+    private Long dataVersion;
+
+}
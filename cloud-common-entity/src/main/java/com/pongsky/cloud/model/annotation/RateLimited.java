@@ -0,0 +1,54 @@
+package com.pongsky.cloud.model.annotation;
+
+import com.pongsky.cloud.model.emums.RateLimitKey;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口限流注解
+ * <p>
+ * 每个限流维度的值在 period 内最多请求 permits 次（允许一次性用完），超过后抛出 FrequencyException；
+ * 方法上的注解优先于类上的注解，类上的注解对每个方法分别限流
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimited {
+
+    /**
+     * 限流维度
+     *
+     * @return 限流维度
+     */
+    RateLimitKey key() default RateLimitKey.IP;
+
+    /**
+     * 周期内允许的请求次数
+     *
+     * @return 周期内允许的请求次数
+     */
+    long permits();
+
+    /**
+     * 周期
+     *
+     * @return 周期
+     */
+    long period() default 1;
+
+    /**
+     * 周期单位
+     *
+     * @return 周期单位
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+}
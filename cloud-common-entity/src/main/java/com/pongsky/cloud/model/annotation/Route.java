@@ -0,0 +1,31 @@
+package com.pongsky.cloud.model.annotation;
+
+import com.pongsky.cloud.model.emums.RouteType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口类型注解
+ * <p>
+ * 未标注的接口均为 {@link RouteType#PROTECTED}，方法上的注解优先于类上的注解
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Route {
+
+    /**
+     * 接口类型
+     *
+     * @return 接口类型
+     */
+    RouteType value();
+
+}
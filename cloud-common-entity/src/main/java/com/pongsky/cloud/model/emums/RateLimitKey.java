@@ -0,0 +1,26 @@
+package com.pongsky.cloud.model.emums;
+
+/**
+ * 限流维度
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public enum RateLimitKey {
+
+    /**
+     * 按用户ID限流，未登录时按 IP 限流
+     */
+    USER,
+
+    /**
+     * 按客户端 IP 限流
+     */
+    IP,
+
+    /**
+     * 按接口限流，所有请求共用同一令牌桶
+     */
+    ROUTE;
+
+}
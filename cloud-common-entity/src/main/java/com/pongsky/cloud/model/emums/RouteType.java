@@ -0,0 +1,28 @@
+package com.pongsky.cloud.model.emums;
+
+/**
+ * 接口类型
+ * <p>
+ * 按限制程度由低到高排列，同一路径对应多个类型时取限制程度最高的类型
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public enum RouteType {
+
+    /**
+     * 探针接口（如健康检查），不鉴权、不打印日志、不封装响应数据
+     */
+    PROBE,
+
+    /**
+     * 公开接口（如登录、注册），不鉴权
+     */
+    PUBLIC,
+
+    /**
+     * 需要鉴权的接口
+     */
+    PROTECTED;
+
+}
@@ -0,0 +1,129 @@
+package com.pongsky.cloud.utils.jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Token 签名密钥环
+ * <p>
+ * 签发时使用最新密钥并写入 kid 请求头，校验时根据 kid 选择对应密钥，旧密钥签发的 Token 在下线前依旧有效
+ *
+ * @author pengsenhao
+ * @create 2021-02-15
+ */
+public class JwtKeyRing {
+
+    /**
+     * 未携带 kid 的 Token 使用的密钥ID
+     */
+    private final String legacyKeyId;
+
+    /**
+     * 密钥ID - 校验器
+     */
+    private final ConcurrentMap<String, JWTVerifier> verifiers = new ConcurrentHashMap<>();
+
+    /**
+     * 当前签发密钥
+     */
+    private volatile SigningKey signingKey;
+
+    public JwtKeyRing(String legacyKeyId, String legacySecret) {
+        this.legacyKeyId = legacyKeyId;
+        rotate(legacyKeyId, legacySecret);
+    }
+
+    /**
+     * 添加密钥（仅用于校验）
+     *
+     * @param keyId  密钥ID
+     * @param secret 密钥
+     */
+    public void add(String keyId, String secret) {
+        verifiers.put(keyId, JWT.require(Algorithm.HMAC256(secret)).build());
+    }
+
+    /**
+     * 添加密钥并切换为签发密钥
+     *
+     * @param keyId  密钥ID
+     * @param secret 密钥
+     */
+    public void rotate(String keyId, String secret) {
+        add(keyId, secret);
+        signingKey = new SigningKey(keyId, Algorithm.HMAC256(secret));
+    }
+
+    /**
+     * 仅保留指定密钥，当前签发密钥不会被移除
+     *
+     * @param keyIds 保留的密钥ID
+     */
+    public void retainAll(Collection<String> keyIds) {
+        String currentKeyId = signingKey.getKeyId();
+        verifiers.keySet().removeIf(keyId -> !keyId.equals(currentKeyId) && !keyIds.contains(keyId));
+    }
+
+    /**
+     * 获取当前签发密钥
+     *
+     * @return 当前签发密钥
+     */
+    public SigningKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * 校验 Token（校验失败将会报错）
+     *
+     * @param token token
+     * @return 载体
+     */
+    public DecodedJWT verify(String token) {
+        DecodedJWT jwt = JWT.decode(token);
+        String keyId = jwt.getKeyId() != null ? jwt.getKeyId() : legacyKeyId;
+        JWTVerifier verifier = verifiers.get(keyId);
+        if (verifier == null) {
+            throw new JWTVerificationException("访问凭证已失效，请重新登录：未知 KID");
+        }
+        return verifier.verify(jwt);
+    }
+
+    /**
+     * 签发密钥
+     */
+    public static final class SigningKey {
+
+        /**
+         * 密钥ID
+         */
+        private final String keyId;
+
+        /**
+         * 签名算法
+         */
+        private final Algorithm algorithm;
+
+        private SigningKey(String keyId, Algorithm algorithm) {
+            this.keyId = keyId;
+            this.algorithm = algorithm;
+        }
+
+        public String getKeyId() {
+            return keyId;
+        }
+
+        public Algorithm getAlgorithm() {
+            return algorithm;
+        }
+
+    }
+
+}
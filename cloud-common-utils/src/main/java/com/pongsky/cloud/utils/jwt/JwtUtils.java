@@ -1,7 +1,6 @@
 package com.pongsky.cloud.utils.jwt;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
@@ -25,9 +24,14 @@ public class JwtUtils {
     private static final String ISS = "彭森豪";
 
     /**
-     * 盐值
+     * 默认密钥ID（未携带 kid 的历史 Token 均由此密钥签发）
      */
-    public static final Algorithm ALGORITHM = Algorithm.HMAC256("PongSky");
+    public static final String DEFAULT_KEY_ID = "0";
+
+    /**
+     * 签名密钥环
+     */
+    public static final JwtKeyRing KEY_RING = new JwtKeyRing(DEFAULT_KEY_ID, "PongSky");
 
     /**
      * 获取 AccessToken
@@ -39,7 +43,9 @@ public class JwtUtils {
      * @return AccessToken
      */
     public static String createAccessToken(String id, String role, String active, String applicationName) {
+        JwtKeyRing.SigningKey signingKey = KEY_RING.getSigningKey();
         return JWT.create()
+                .withKeyId(signingKey.getKeyId())
                 .withClaim(AuthData.ID.toString(), id)
                 .withClaim(AuthData.ROLE.toString(), role)
                 .withClaim(AuthData.ACTIVE.toString(), active)
@@ -47,7 +53,7 @@ public class JwtUtils {
                 .withIssuer(ISS)
                 .withIssuedAt(new Date())
                 .withExpiresAt(DateUtils.addHours(new Date(), 2))
-                .sign(ALGORITHM);
+                .sign(signingKey.getAlgorithm());
     }
 
     /**
@@ -59,14 +65,26 @@ public class JwtUtils {
      * @return RefreshToken
      */
     public static String createRefreshToken(String id, String active, String applicationName) {
+        JwtKeyRing.SigningKey signingKey = KEY_RING.getSigningKey();
         return JWT.create()
+                .withKeyId(signingKey.getKeyId())
                 .withClaim(AuthData.ID.toString(), id)
                 .withClaim(AuthData.ACTIVE.toString(), active)
                 .withClaim(AuthData.APPLICATION.toString(), applicationName)
                 .withIssuer(ISS)
                 .withIssuedAt(new Date())
                 .withExpiresAt(DateUtils.addDays(new Date(), 7))
-                .sign(ALGORITHM);
+                .sign(signingKey.getAlgorithm());
+    }
+
+    /**
+     * 校验 Token（校验失败将会报错）
+     *
+     * @param token token
+     * @return 载体
+     */
+    public static DecodedJWT verify(String token) {
+        return KEY_RING.verify(token);
     }
 
     /**
@@ -75,7 +93,7 @@ public class JwtUtils {
      * @param token token
      * @return 载体
      */
-    private static DecodedJWT getTokenBody(String token) {
+    public static DecodedJWT getTokenBody(String token) {
         try {
             return JWT.decode(token);
         } catch (Exception e) {
@@ -90,7 +108,17 @@ public class JwtUtils {
      * @return 获取ID
      */
     public static Long getId(String token) {
-        Claim claim = getTokenBody(token).getClaim(AuthData.ID.toString());
+        return getId(getTokenBody(token));
+    }
+
+    /**
+     * 获取ID
+     *
+     * @param jwt 已解析的载体
+     * @return 获取ID
+     */
+    public static Long getId(DecodedJWT jwt) {
+        Claim claim = jwt.getClaim(AuthData.ID.toString());
         if (claim.isNull()) {
             throw new JWTDecodeException("访问凭证已失效，请重新登录：缺少 ID");
         }
@@ -104,7 +132,17 @@ public class JwtUtils {
      * @return 获取环境
      */
     public static String getActive(String token) {
-        Claim claim = getTokenBody(token).getClaim(AuthData.ACTIVE.toString());
+        return getActive(getTokenBody(token));
+    }
+
+    /**
+     * 获取环境
+     *
+     * @param jwt 已解析的载体
+     * @return 获取环境
+     */
+    public static String getActive(DecodedJWT jwt) {
+        Claim claim = jwt.getClaim(AuthData.ACTIVE.toString());
         if (claim.isNull()) {
             throw new JWTDecodeException("访问凭证已失效，请重新登录：缺少 ACTIVE");
         }
@@ -118,7 +156,17 @@ public class JwtUtils {
      * @return 获取应用
      */
     public static String getApplication(String token) {
-        Claim claim = getTokenBody(token).getClaim(AuthData.APPLICATION.toString());
+        return getApplication(getTokenBody(token));
+    }
+
+    /**
+     * 获取应用
+     *
+     * @param jwt 已解析的载体
+     * @return 获取应用
+     */
+    public static String getApplication(DecodedJWT jwt) {
+        Claim claim = jwt.getClaim(AuthData.APPLICATION.toString());
         if (claim.isNull()) {
             throw new JWTDecodeException("访问凭证已失效，请重新登录：缺少 APPLICATION");
         }
@@ -132,7 +180,17 @@ public class JwtUtils {
      * @return 获取role
      */
     public static AuthRole getRole(String token) {
-        Claim claim = getTokenBody(token).getClaim(AuthData.ROLE.toString());
+        return getRole(getTokenBody(token));
+    }
+
+    /**
+     * 获取role
+     *
+     * @param jwt 已解析的载体
+     * @return 获取role
+     */
+    public static AuthRole getRole(DecodedJWT jwt) {
+        Claim claim = jwt.getClaim(AuthData.ROLE.toString());
         if (claim.isNull()) {
             throw new JWTDecodeException("访问凭证已失效，请重新登录：缺少 ROLE");
         }
@@ -21,7 +21,12 @@ public enum AuthRole {
     /**
      * 用户
      */
-    USER;
+    USER,
+
+    /**
+     * 服务间调用
+     */
+    INNER;
 
     /**
      * 管理员角色
@@ -33,4 +38,9 @@ public enum AuthRole {
      */
     public static final String USER_ROLE = "USER";
 
+    /**
+     * 服务间调用角色
+     */
+    public static final String INNER_ROLE = "INNER";
+
 }
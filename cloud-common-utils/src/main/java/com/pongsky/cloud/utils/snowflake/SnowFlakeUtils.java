@@ -1,5 +1,10 @@
 package com.pongsky.cloud.utils.snowflake;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * 雪花算法全局唯一ID
  *
@@ -42,66 +47,313 @@ public class SnowFlakeUtils {
     private final static long TIMESTAMP_LEFT = DATACENTER_LEFT + DATACENTER_BIT;
 
     /**
-     * 数据中心
+     * 工作节点ID最大值（高 5 位为数据中心，低 5 位为机器标识）
+     */
+    public final static long MAX_WORKER_ID = ~(-1L << (DATACENTER_BIT + MACHINE_BIT));
+
+    /**
+     * 等待下一毫秒时的最短挂起时间
+     */
+    private final static long PARK_NANOS = 100_000L;
+
+    /**
+     * 未分配工作节点ID
+     */
+    private final static long UNASSIGNED = -1L;
+
+    /**
+     * 工作节点ID左移后的值（数据中心部分 | 机器标识部分）
+     */
+    private volatile long workerBits = UNASSIGNED;
+
+    /**
+     * 工作节点ID是否有租约期限
+     */
+    private volatile boolean leased = false;
+
+    /**
+     * 工作节点ID租约期限（System.nanoTime），超过后拒绝产生ID，不依赖续约线程是否正常运行
+     */
+    private volatile long leaseDeadline;
+
+    /**
+     * 时间戳与序列号
+     * <p>
+     * 高位为相对起始时间戳的毫秒数，低 {@link #SEQUENCE_BIT} 位为序列号，通过 CAS 整体更新
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 允许的时钟回拨毫秒数，0 表示不允许
+     * <p>
+     * 回拨在范围内时沿用上一次时间戳继续产生ID（借用时间），直到时钟追上；超出范围直接报错
+     */
+    private volatile long maxBackwardMillis = 0L;
+
+    /**
+     * 借用时间产生的ID数量
+     */
+    private final LongAdder borrowedCount = new LongAdder();
+
+    /**
+     * 等待下一毫秒的次数
+     */
+    private final LongAdder waitCount = new LongAdder();
+
+    /**
+     * 创建后需调用 {@link #setWorkerId(long)} 分配工作节点ID，分配前产生ID将会直接报错
+     */
+    public SnowFlakeUtils() {
+    }
+
+    public SnowFlakeUtils(long workerId) {
+        setWorkerId(workerId);
+    }
+
+    /**
+     * 分配工作节点ID，不限期
+     *
+     * @param workerId 工作节点ID，0 ~ {@link #MAX_WORKER_ID}
+     */
+    public void setWorkerId(long workerId) {
+        checkWorkerId(workerId);
+        leased = false;
+        workerBits = workerId << MACHINE_LEFT;
+    }
+
+    /**
+     * 按租约分配工作节点ID，超过租约期限后拒绝产生ID，需通过 {@link #renewLease(long)} 续期
+     *
+     * @param workerId      工作节点ID，0 ~ {@link #MAX_WORKER_ID}
+     * @param leaseDeadline 租约期限（System.nanoTime）
+     */
+    public void setWorkerId(long workerId, long leaseDeadline) {
+        checkWorkerId(workerId);
+        this.leaseDeadline = leaseDeadline;
+        leased = true;
+        workerBits = workerId << MACHINE_LEFT;
+    }
+
+    /**
+     * 续期工作节点ID租约
+     *
+     * @param leaseDeadline 租约期限（System.nanoTime）
+     */
+    public void renewLease(long leaseDeadline) {
+        this.leaseDeadline = leaseDeadline;
+    }
+
+    private static void checkWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("worker id must be between 0 and " + MAX_WORKER_ID + ": " + workerId);
+        }
+    }
+
+    /**
+     * 收回工作节点ID，重新分配前产生ID将会直接报错
+     */
+    public void revokeWorkerId() {
+        workerBits = UNASSIGNED;
+    }
+
+    /**
+     * 获取工作节点ID
+     *
+     * @return 工作节点ID，未分配返回 -1
+     */
+    public long getWorkerId() {
+        long bits = workerBits;
+        return bits == UNASSIGNED ? UNASSIGNED : bits >>> MACHINE_LEFT;
+    }
+
+    /**
+     * 设置允许的时钟回拨毫秒数
+     *
+     * @param maxBackwardMillis 允许的时钟回拨毫秒数，0 表示不允许
      */
-    private final static long DATACENTER_ID = (int) (Math.random() * 9 + 1);
+    public void setMaxBackwardMillis(long maxBackwardMillis) {
+        if (maxBackwardMillis < 0) {
+            throw new IllegalArgumentException("max backward millis must not be negative: " + maxBackwardMillis);
+        }
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
 
     /**
-     * 机器标识
+     * 获取借用时间产生的ID数量
+     *
+     * @return 借用时间产生的ID数量
      */
-    private final static long MACHINE_ID = (int) (Math.random() * 9 + 1);
+    public long getBorrowedCount() {
+        return borrowedCount.sum();
+    }
 
     /**
-     * 序列号
+     * 获取等待下一毫秒的次数
+     *
+     * @return 等待下一毫秒的次数
      */
-    private long sequence = 0L;
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
 
     /**
-     * 上一次时间戳
+     * 获取工作节点ID左移后的值，未分配或租约已过期时直接报错，不挂起请求线程
+     *
+     * @return 工作节点ID左移后的值
      */
-    private long lastStamp = -1L;
+    private long getWorkerBits() {
+        long bits = workerBits;
+        if (bits == UNASSIGNED) {
+            throw new IllegalStateException("Worker id is not assigned.  Refusing to generate id");
+        }
+        if (leased && System.nanoTime() - leaseDeadline >= 0) {
+            throw new IllegalStateException("Worker id lease expired.  Refusing to generate id");
+        }
+        return bits;
+    }
 
     /**
      * 产生下一个ID
      *
      * @return 产生下一个ID
      */
-    public synchronized long getId() {
-        long currStamp = getNewStamp();
-        if (currStamp < lastStamp) {
-            throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
+    public long getId() {
+        long worker = getWorkerBits();
+        for (; ; ) {
+            // 先读取状态再读取时钟，保证时钟不会小于其他线程已写入的时间戳（借用时间除外）
+            long current = state.get();
+            long lastStamp = current >>> SEQUENCE_BIT;
+            long currStamp = getNewStamp() - START_STAMP;
+
+            long next;
+            if (currStamp > lastStamp) {
+                // 不同毫秒内，序列号置为0
+                next = currStamp << SEQUENCE_BIT;
+            } else {
+                // 相同毫秒内或时钟回拨在允许范围内，沿用上一次时间戳，序列号自增
+                checkBackwards(lastStamp, currStamp);
+                long sequence = (current + 1) & MAX_SEQUENCE;
+                // 同一毫秒的序列数已经达到最大
+                next = sequence == 0L
+                        ? getNextMill(lastStamp, currStamp) << SEQUENCE_BIT
+                        : current + 1;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long stamp = next >>> SEQUENCE_BIT;
+                if (stamp > currStamp) {
+                    borrowedCount.increment();
+                }
+                return compose(stamp, worker, next & MAX_SEQUENCE);
+            }
         }
+    }
 
-        if (currStamp == lastStamp) {
-            // 相同毫秒内，序列号自增
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            // 同一毫秒的序列数已经达到最大
-            if (sequence == 0L) {
-                currStamp = getNextMill();
+    /**
+     * 批量产生ID
+     * <p>
+     * 一次 CAS 占用同一毫秒内连续的序列号，序列号用尽后顺延到下一毫秒
+     *
+     * @param count 数量
+     * @return 批量产生ID，按生成顺序递增
+     */
+    public long[] getIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        long worker = getWorkerBits();
+        int index = 0;
+        while (index < count) {
+            long current = state.get();
+            long lastStamp = current >>> SEQUENCE_BIT;
+            long currStamp = getNewStamp() - START_STAMP;
+
+            long stamp;
+            long first;
+            if (currStamp > lastStamp) {
+                stamp = currStamp;
+                first = 0L;
+            } else {
+                checkBackwards(lastStamp, currStamp);
+                long sequence = current & MAX_SEQUENCE;
+                if (sequence == MAX_SEQUENCE) {
+                    // 同一毫秒的序列数已经达到最大
+                    stamp = getNextMill(lastStamp, currStamp);
+                    first = 0L;
+                } else {
+                    stamp = lastStamp;
+                    first = sequence + 1;
+                }
+            }
+            long last = Math.min(first + (count - index) - 1, MAX_SEQUENCE);
+
+            if (state.compareAndSet(current, stamp << SEQUENCE_BIT | last)) {
+                if (stamp > currStamp) {
+                    borrowedCount.add(last - first + 1);
+                }
+                for (long sequence = first; sequence <= last; sequence++) {
+                    ids[index++] = compose(stamp, worker, sequence);
+                }
             }
-        } else {
-            // 不同毫秒内，序列号置为0
-            sequence = 0L;
         }
+        return ids;
+    }
 
-        lastStamp = currStamp;
+    /**
+     * 校验时钟回拨是否在允许范围内
+     *
+     * @param lastStamp 上一次时间戳
+     * @param currStamp 当前时间戳
+     */
+    private void checkBackwards(long lastStamp, long currStamp) {
+        if (lastStamp - currStamp > maxBackwardMillis) {
+            throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
+        }
+    }
 
+    /**
+     * 组装ID
+     *
+     * @param stamp    相对起始时间戳的毫秒数
+     * @param worker   工作节点ID左移后的值
+     * @param sequence 序列号
+     * @return 组装ID
+     */
+    private static long compose(long stamp, long worker, long sequence) {
         return          // 时间戳部分
-                (currStamp - START_STAMP) << TIMESTAMP_LEFT
-                        // 数据中心部分
-                        | DATACENTER_ID << DATACENTER_LEFT
-                        // 机器标识部分
-                        | MACHINE_ID << MACHINE_LEFT
+                stamp << TIMESTAMP_LEFT
+                        // 数据中心部分 | 机器标识部分
+                        | worker
                         // 序列号部分
                         | sequence;
     }
 
-    private long getNextMill() {
-        long mill = getNewStamp();
-        while (mill <= lastStamp) {
-            mill = getNewStamp();
+    /**
+     * 获取下一毫秒
+     * <p>
+     * 下一毫秒领先时钟不超过允许的回拨范围则直接借用，否则挂起等待时钟追上
+     *
+     * @param lastStamp 上一次时间戳
+     * @param currStamp 当前时间戳
+     * @return 下一毫秒
+     */
+    private long getNextMill(long lastStamp, long currStamp) {
+        long nextStamp = lastStamp + 1;
+        long mill = currStamp;
+        if (nextStamp - mill > maxBackwardMillis) {
+            waitCount.increment();
+            do {
+                // 当前毫秒已过去的部分未知，最后 1 毫秒按短间隔挂起，避免多等一毫秒
+                long remaining = nextStamp - maxBackwardMillis - mill - 1;
+                LockSupport.parkNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(remaining), PARK_NANOS));
+                mill = getNewStamp() - START_STAMP;
+            } while (nextStamp - mill > maxBackwardMillis);
         }
-        return mill;
+        return nextStamp;
     }
 
     private long getNewStamp() {
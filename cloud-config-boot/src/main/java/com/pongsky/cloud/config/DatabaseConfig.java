@@ -1,7 +1,16 @@
 package com.pongsky.cloud.config;
 
+import com.pongsky.cloud.lease.WorkerIdLease;
+import com.pongsky.cloud.mapper.WorkerLeaseMapper;
 import com.pongsky.cloud.utils.snowflake.SnowFlakeUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
 
 /**
  * 数据库配置
@@ -14,11 +23,54 @@ public class DatabaseConfig {
     /**
      * 雪花算法工具类
      *
+     * @param maxBackward 允许的时钟回拨时间
      * @return 雪花算法工具类
      */
     @Bean
-    public SnowFlakeUtils snowFlakeUtils() {
-        return new SnowFlakeUtils();
+    public SnowFlakeUtils snowFlakeUtils(@Value("${application.snowflake.max-backward:0ms}") Duration maxBackward) {
+        SnowFlakeUtils snowFlakeUtils = new SnowFlakeUtils();
+        snowFlakeUtils.setMaxBackwardMillis(maxBackward.toMillis());
+        return snowFlakeUtils;
+    }
+
+    /**
+     * 雪花算法监控指标
+     *
+     * @param snowFlakeUtils 雪花算法工具类
+     * @return 雪花算法监控指标
+     */
+    @Bean
+    public MeterBinder snowFlakeMetrics(SnowFlakeUtils snowFlakeUtils) {
+        return registry -> {
+            FunctionCounter.builder("snowflake.borrowed", snowFlakeUtils, SnowFlakeUtils::getBorrowedCount)
+                    .description("借用时间产生的ID数量")
+                    .register(registry);
+            FunctionCounter.builder("snowflake.wait", snowFlakeUtils, SnowFlakeUtils::getWaitCount)
+                    .description("等待下一毫秒的次数")
+                    .register(registry);
+            Gauge.builder("snowflake.worker.id", snowFlakeUtils, SnowFlakeUtils::getWorkerId)
+                    .description("工作节点ID，未分配为 -1")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 雪花算法工作节点ID租约
+     *
+     * @param snowFlakeUtils     雪花算法工具类
+     * @param workerLeaseMapper  工作节点ID租约
+     * @param transactionManager 事务管理器
+     * @param leaseDuration      租约时长
+     * @param heartbeatInterval  心跳间隔
+     * @return 雪花算法工作节点ID租约
+     */
+    @Bean
+    public WorkerIdLease workerIdLease(SnowFlakeUtils snowFlakeUtils,
+                                       WorkerLeaseMapper workerLeaseMapper,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${application.snowflake.lease-duration:30s}") Duration leaseDuration,
+                                       @Value("${application.snowflake.heartbeat-interval:10s}") Duration heartbeatInterval) {
+        return new WorkerIdLease(snowFlakeUtils, workerLeaseMapper, transactionManager, leaseDuration, heartbeatInterval);
     }
 
 }
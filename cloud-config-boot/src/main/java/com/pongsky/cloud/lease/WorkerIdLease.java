@@ -0,0 +1,251 @@
+package com.pongsky.cloud.lease;
+
+import com.pongsky.cloud.entity.worker.dos.WorkerLeaseDo;
+import com.pongsky.cloud.mapper.WorkerLeaseMapper;
+import com.pongsky.cloud.utils.snowflake.SnowFlakeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 雪花算法工作节点ID租约
+ * <p>
+ * 启动后在后台线程中申请租约，不阻塞启动；申请成功前产生ID将会直接报错，不挂起请求线程。之后按心跳间隔续约。
+ * 申请时优先占用未使用的工作节点ID，其次回收已过期的租约，租约被回收时重新申请。
+ * 每条 SQL 的超时时间为一个心跳间隔，短于租约时长；本地租约期限以 System.nanoTime 记录在 {@link SnowFlakeUtils} 中，
+ * 即使续约卡住未返回，超过期限后也会拒绝产生ID
+ *
+ * @author pengsenhao
+ * @create 2021-02-17
+ */
+@Slf4j
+public class WorkerIdLease implements InitializingBean, DisposableBean {
+
+    private final SnowFlakeUtils snowFlakeUtils;
+    private final WorkerLeaseMapper workerLeaseMapper;
+
+    /**
+     * 带超时时间的事务，每条 SQL 单独执行
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 租约时长
+     */
+    private final Duration leaseDuration;
+
+    /**
+     * 心跳间隔
+     */
+    private final Duration heartbeatInterval;
+
+    /**
+     * 持有者（主机名/随机ID，每个进程唯一）
+     */
+    private final String owner;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "worker-id-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 当前持有的工作节点ID
+     */
+    private volatile Integer workerId;
+
+    /**
+     * 本地租约期限（System.nanoTime）
+     */
+    private volatile long leaseDeadline;
+
+    public WorkerIdLease(SnowFlakeUtils snowFlakeUtils, WorkerLeaseMapper workerLeaseMapper,
+                         PlatformTransactionManager transactionManager,
+                         Duration leaseDuration, Duration heartbeatInterval) {
+        if (heartbeatInterval.compareTo(leaseDuration) >= 0) {
+            throw new IllegalArgumentException("application.snowflake.heartbeat-interval 必须小于 lease-duration");
+        }
+        this.snowFlakeUtils = snowFlakeUtils;
+        this.workerLeaseMapper = workerLeaseMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // JDBC 超时时间以秒为单位，至少 1 秒
+        this.transactionTemplate.setTimeout((int) Math.max(1L, heartbeatInterval.getSeconds()));
+        this.leaseDuration = leaseDuration;
+        this.heartbeatInterval = heartbeatInterval;
+        this.owner = getHostName() + "/" + UUID.randomUUID();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        executor.scheduleWithFixedDelay(this::heartbeat, 0L, heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 申请或续约
+     */
+    private void heartbeat() {
+        try {
+            if (workerId == null) {
+                acquire();
+            } else {
+                renew();
+            }
+        } catch (Exception e) {
+            log.warn("工作节点ID租约心跳失败：{}", e.getLocalizedMessage());
+            // 预留一个心跳间隔，避免租约过期后被其他节点回收时仍在使用
+            if (workerId != null && System.nanoTime() + heartbeatInterval.toNanos() - leaseDeadline >= 0) {
+                revoke("租约即将到期且续约失败");
+            }
+        }
+    }
+
+    /**
+     * 申请租约
+     */
+    private void acquire() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expires = now.plus(leaseDuration);
+        List<WorkerLeaseDo> leases = execute(workerLeaseMapper::findAll);
+        int capacity = (int) SnowFlakeUtils.MAX_WORKER_ID + 1;
+        BitSet used = new BitSet(capacity);
+        leases.forEach(lease -> used.set(lease.getWorkerId()));
+        // 随机起点，减少多个节点同时启动时的冲突
+        int offset = ThreadLocalRandom.current().nextInt(capacity);
+        for (int i = 0; i < capacity; i++) {
+            int candidate = (offset + i) % capacity;
+            if (used.get(candidate)) {
+                continue;
+            }
+            try {
+                if (execute(() -> workerLeaseMapper.save(candidate, owner, expires)) == 1) {
+                    assign(candidate, start);
+                    return;
+                }
+            } catch (DuplicateKeyException e) {
+                // 已被其他节点占用，继续尝试
+            }
+        }
+        for (WorkerLeaseDo lease : leases) {
+            if (lease.getExpiresAt().isBefore(now)
+                    && execute(() -> workerLeaseMapper.updateOwnerByExpired(lease.getWorkerId(),
+                    lease.getDataVersion(), owner, expires, now)) == 1) {
+                log.info("回收已过期的工作节点ID [{}]，原持有者 [{}]", lease.getWorkerId(), lease.getOwner());
+                assign(lease.getWorkerId(), start);
+                return;
+            }
+        }
+        log.warn("工作节点ID已全部占用，等待租约过期");
+    }
+
+    /**
+     * 续约
+     */
+    private void renew() {
+        long start = System.nanoTime();
+        LocalDateTime expires = LocalDateTime.now().plus(leaseDuration);
+        Integer id = workerId;
+        if (execute(() -> workerLeaseMapper.updateExpiresAtByOwner(id, owner, expires)) == 1) {
+            leaseDeadline = deadline(start);
+            snowFlakeUtils.renewLease(leaseDeadline);
+            return;
+        }
+        revoke("租约已被其他节点回收");
+        acquire();
+    }
+
+    /**
+     * 以带超时时间的事务执行 SQL
+     *
+     * @param statement SQL
+     * @param <T>       返回值类型
+     * @return SQL 执行结果
+     */
+    private <T> T execute(Supplier<T> statement) {
+        return transactionTemplate.execute(status -> statement.get());
+    }
+
+    /**
+     * 计算本地租约期限
+     * <p>
+     * 从发起 SQL 前开始计时，并预留 (租约时长 - 心跳间隔) / 2 应对节点间的时钟偏差，
+     * 期限始终晚于下一次心跳，续约正常时不会中断产生ID
+     *
+     * @param start 发起 SQL 前的 System.nanoTime
+     * @return 本地租约期限
+     */
+    private long deadline(long start) {
+        return start + (leaseDuration.toNanos() + heartbeatInterval.toNanos()) / 2;
+    }
+
+    /**
+     * 分配工作节点ID
+     *
+     * @param id    工作节点ID
+     * @param start 发起 SQL 前的 System.nanoTime
+     */
+    private void assign(int id, long start) {
+        workerId = id;
+        leaseDeadline = deadline(start);
+        snowFlakeUtils.setWorkerId(id, leaseDeadline);
+        log.info("工作节点ID [{}] 租约申请成功，持有者 [{}]", id, owner);
+    }
+
+    /**
+     * 收回工作节点ID
+     *
+     * @param reason 原因
+     */
+    private void revoke(String reason) {
+        log.warn("收回工作节点ID [{}]：{}", workerId, reason);
+        snowFlakeUtils.revokeWorkerId();
+        workerId = null;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        Integer id = workerId;
+        if (id == null) {
+            return;
+        }
+        snowFlakeUtils.revokeWorkerId();
+        try {
+            workerLeaseMapper.deleteByIdAndOwner(id, owner);
+            log.info("工作节点ID [{}] 租约已释放", id);
+        } catch (Exception e) {
+            log.warn("工作节点ID [{}] 租约释放失败：{}", id, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * 获取主机名
+     *
+     * @return 主机名
+     */
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+}
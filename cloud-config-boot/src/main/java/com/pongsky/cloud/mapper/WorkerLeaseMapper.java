@@ -0,0 +1,101 @@
+package com.pongsky.cloud.mapper;
+
+import com.pongsky.cloud.entity.worker.dos.WorkerLeaseDo;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 工作节点ID租约
+ * <p>
+ * 仅使用标准 SQL，MySQL 与 H2 均可执行；时间由调用方传入，不依赖数据库时间函数
+ *
+ * @author pengsenhao
+ * @create 2021-02-17
+ */
+@Mapper
+public interface WorkerLeaseMapper {
+
+    /**
+     * 查询全部租约
+     *
+     * @return 查询全部租约
+     */
+    @Select("select w.worker_id,w.owner,w.expires_at,w.data_version " +
+            "from worker_lease w ")
+    List<WorkerLeaseDo> findAll();
+
+    /**
+     * 保存租约（工作节点ID已存在将会报错）
+     *
+     * @param workerId  工作节点ID
+     * @param owner     持有者
+     * @param expiresAt 租约到期时间
+     * @return 保存租约
+     */
+    @Insert("insert into worker_lease(worker_id,owner,expires_at,data_version) " +
+            "values(#{workerId},#{owner},#{expiresAt},0) ")
+    Integer save(@Param("workerId") Integer workerId,
+                 @Param("owner") String owner,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * 根据工作节点ID和数据版本号回收已过期租约
+     *
+     * @param workerId    工作节点ID
+     * @param dataVersion 数据版本号
+     * @param owner       新持有者
+     * @param expiresAt   租约到期时间
+     * @param now         当前时间
+     * @return 根据工作节点ID和数据版本号回收已过期租约
+     */
+    @Update("update worker_lease " +
+            "set owner = #{owner} " +
+            ",expires_at = #{expiresAt} " +
+            ",data_version = #{dataVersion} + 1 " +
+            "where worker_id = #{workerId} " +
+            "and data_version = #{dataVersion} " +
+            "and expires_at < #{now} ")
+    Integer updateOwnerByExpired(@Param("workerId") Integer workerId,
+                                 @Param("dataVersion") Long dataVersion,
+                                 @Param("owner") String owner,
+                                 @Param("expiresAt") LocalDateTime expiresAt,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * 根据工作节点ID和持有者续约
+     *
+     * @param workerId  工作节点ID
+     * @param owner     持有者
+     * @param expiresAt 租约到期时间
+     * @return 根据工作节点ID和持有者续约
+     */
+    @Update("update worker_lease " +
+            "set expires_at = #{expiresAt} " +
+            ",data_version = data_version + 1 " +
+            "where worker_id = #{workerId} " +
+            "and owner = #{owner} ")
+    Integer updateExpiresAtByOwner(@Param("workerId") Integer workerId,
+                                   @Param("owner") String owner,
+                                   @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * 根据工作节点ID和持有者释放租约
+     *
+     * @param workerId 工作节点ID
+     * @param owner    持有者
+     * @return 根据工作节点ID和持有者释放租约
+     */
+    @Delete("delete from worker_lease " +
+            "where worker_id = #{workerId} " +
+            "and owner = #{owner} ")
+    Integer deleteByIdAndOwner(@Param("workerId") Integer workerId,
+                               @Param("owner") String owner);
+
+}
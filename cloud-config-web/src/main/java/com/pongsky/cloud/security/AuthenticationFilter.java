@@ -1,7 +1,11 @@
 package com.pongsky.cloud.security;
 
+import com.pongsky.cloud.model.emums.RouteType;
 import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
 import com.pongsky.cloud.web.request.AuthUtils;
+import com.pongsky.cloud.web.route.RouteMetadataRegistry;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,10 +18,15 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * 鉴权拦截器
+ * <p>
+ * 探针接口、公开接口（见 {@link RouteMetadataRegistry#getRouteType}）不解析 Token，直接跳过
  *
  * @author pengsenhao
  * @create 2021-02-11
@@ -27,7 +36,7 @@ public class AuthenticationFilter extends OncePerRequestFilter {
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        return false;
+        return RouteMetadataRegistry.getRouteType(request) != RouteType.PROTECTED;
     }
 
     /**
@@ -35,6 +44,19 @@ public class AuthenticationFilter extends OncePerRequestFilter {
      */
     private static final String ROLE_STARTS_WITH = "ROLE_";
 
+    /**
+     * 角色 - 权限，每个角色共用同一个权限集合
+     */
+    private static final Map<AuthRole, Collection<GrantedAuthority>> AUTHORITIES = new EnumMap<>(AuthRole.class);
+
+    static {
+        for (AuthRole role : AuthRole.values()) {
+            AUTHORITIES.put(role, Collections.singleton(new SimpleGrantedAuthority(ROLE_STARTS_WITH + role)));
+        }
+    }
+
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -44,8 +66,8 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         PreAuthenticatedAuthenticationToken authentication = new PreAuthenticatedAuthenticationToken(
                 authInfo,
                 null,
-                Collections.singleton(new SimpleGrantedAuthority(ROLE_STARTS_WITH + authInfo.getRole())));
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                AUTHORITIES.get(authInfo.getRole()));
+        authentication.setDetails(DETAILS_SOURCE.buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authentication);
         chain.doFilter(request, response);
     }
@@ -0,0 +1,149 @@
+package com.pongsky.cloud.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * 可校准强度的 BCrypt 密码加密
+ * <p>
+ * 已存储密码强度低于当前强度时 {@link #upgradeEncoding(String)} 返回 true，由调用方在登录成功后重新加密；
+ * 强度更高的密码保持不变，避免各节点校准结果不同时相互覆盖，或强度较低的节点削弱已存储的密码
+ *
+ * @author pengsenhao
+ * @create 2021-02-17
+ */
+@Slf4j
+public class CalibratedPasswordEncoder extends BCryptPasswordEncoder {
+
+    /**
+     * BCrypt 允许的最小强度
+     */
+    public static final int MIN_STRENGTH = 4;
+
+    /**
+     * BCrypt 允许的最大强度
+     */
+    public static final int MAX_STRENGTH = 31;
+
+    /**
+     * 校准时的测量强度
+     */
+    private static final int SAMPLE_STRENGTH = 8;
+
+    /**
+     * 校准时的测量次数
+     */
+    private static final int SAMPLE_COUNT = 5;
+
+    /**
+     * 校准时使用的明文
+     */
+    private static final String SAMPLE_PASSWORD = "PongSky-Calibration";
+
+    /**
+     * 强度
+     */
+    private final int strength;
+
+    public CalibratedPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * 获取强度
+     *
+     * @return 强度
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * 已加密密码强度低于当前强度则需要重新加密
+     *
+     * @param encodedPassword 已加密密码
+     * @return 是否需要重新加密
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = getStrength(encodedPassword);
+        return cost != -1 && cost < strength;
+    }
+
+    /**
+     * 解析已加密密码的强度，格式为 $2a$10$...
+     *
+     * @param encodedPassword 已加密密码
+     * @return 强度，无法解析返回 -1
+     */
+    public static int getStrength(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    /**
+     * 测量本机 BCrypt 耗时，选出不超过目标耗时的最大强度
+     * <p>
+     * 强度每增加 1 耗时翻倍，因此只需测量一个较低强度即可推算
+     *
+     * @param targetLatency 目标耗时
+     * @param minStrength   最小强度
+     * @param maxStrength   最大强度
+     * @return 强度
+     */
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        int lower = Math.max(minStrength, MIN_STRENGTH);
+        int upper = Math.min(maxStrength, MAX_STRENGTH);
+        if (lower > upper) {
+            throw new IllegalArgumentException("BCrypt 最小强度 [" + minStrength + "] 不能大于最大强度 [" + maxStrength + "]");
+        }
+        String salt = BCrypt.gensalt(SAMPLE_STRENGTH);
+        // 预热
+        BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+        long sampleNanos = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+            sampleNanos = Math.min(sampleNanos, System.nanoTime() - start);
+        }
+        long targetNanos = targetLatency.toNanos();
+        int strength = lower;
+        while (strength < upper && estimate(sampleNanos, strength + 1) <= targetNanos) {
+            strength++;
+        }
+        log.info("BCrypt 校准：强度 [{}] 测量耗时 [{}]ms，目标耗时 [{}]ms，选定强度 [{}] 预计耗时 [{}]ms",
+                SAMPLE_STRENGTH, sampleNanos / 1_000_000.0, targetLatency.toMillis(),
+                strength, estimate(sampleNanos, strength) / 1_000_000);
+        return strength;
+    }
+
+    /**
+     * 根据测量耗时推算指定强度的耗时
+     *
+     * @param sampleNanos 测量耗时
+     * @param strength    强度
+     * @return 推算耗时
+     */
+    private static long estimate(long sampleNanos, int strength) {
+        int shift = strength - SAMPLE_STRENGTH;
+        if (shift >= 0) {
+            return shift >= Long.numberOfLeadingZeros(sampleNanos) - 1 ? Long.MAX_VALUE : sampleNanos << shift;
+        }
+        return sampleNanos >> -shift;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.pongsky.cloud.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 跨域预检请求拦截器
+ * <p>
+ * 在所有 filter 之前直接响应合法的预检请求，不再经过鉴权、body 替换等 filter；
+ * 响应头按跨域配置预先生成，不合法的预检请求交由 Spring Security 的 CorsFilter 拒绝
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorsPreflightFilter extends OncePerRequestFilter {
+
+    /**
+     * Vary 响应头
+     */
+    private static final String VARY = String.join(", ", HttpHeaders.ORIGIN,
+            HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+
+    private final CorsConfigurationSource corsConfigurationSource;
+
+    /**
+     * 跨域配置 - 预检响应头
+     */
+    private final Map<CorsConfiguration, PreflightHeaders> preflightHeaders = new ConcurrentHashMap<>();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !CorsUtils.isPreFlightRequest(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        CorsConfiguration corsConfiguration = corsConfigurationSource.getCorsConfiguration(request);
+        if (corsConfiguration == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String allowOrigin = corsConfiguration.checkOrigin(request.getHeader(HttpHeaders.ORIGIN));
+        HttpMethod requestMethod = HttpMethod.resolve(request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD));
+        List<String> requestHeaders = getRequestHeaders(request);
+        List<String> allowHeaders = corsConfiguration.checkHeaders(requestHeaders);
+        if (allowOrigin == null || corsConfiguration.checkHttpMethod(requestMethod) == null
+                || (!requestHeaders.isEmpty() && allowHeaders == null)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        PreflightHeaders headers = preflightHeaders.computeIfAbsent(corsConfiguration, PreflightHeaders::new);
+        response.setHeader(HttpHeaders.VARY, VARY);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, allowOrigin);
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, headers.allowMethods);
+        if (allowHeaders != null && !allowHeaders.isEmpty()) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, String.join(", ", allowHeaders));
+        }
+        if (headers.allowCredentials) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, Boolean.TRUE.toString());
+        }
+        if (headers.maxAge != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_MAX_AGE, headers.maxAge);
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * 获取预检请求声明的请求头
+     *
+     * @param request request
+     * @return 预检请求声明的请求头
+     */
+    private static List<String> getRequestHeaders(HttpServletRequest request) {
+        String headers = request.getHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+        if (headers == null || headers.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> requestHeaders = new ArrayList<>();
+        for (String header : headers.split(",")) {
+            header = header.trim();
+            if (!header.isEmpty()) {
+                requestHeaders.add(header);
+            }
+        }
+        return requestHeaders;
+    }
+
+    /**
+     * 预先生成的预检响应头
+     */
+    private static class PreflightHeaders {
+
+        /**
+         * Access-Control-Allow-Methods
+         */
+        private final String allowMethods;
+
+        /**
+         * Access-Control-Allow-Credentials
+         */
+        private final boolean allowCredentials;
+
+        /**
+         * Access-Control-Max-Age，未配置时为 null
+         */
+        private final String maxAge;
+
+        private PreflightHeaders(CorsConfiguration corsConfiguration) {
+            List<String> methods = corsConfiguration.getAllowedMethods();
+            this.allowMethods = methods != null ? String.join(", ", methods) : HttpMethod.GET + ", " + HttpMethod.HEAD;
+            this.allowCredentials = Boolean.TRUE.equals(corsConfiguration.getAllowCredentials());
+            Long maxAge = corsConfiguration.getMaxAge();
+            this.maxAge = maxAge != null ? maxAge.toString() : null;
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.pongsky.cloud.security;
+
+import com.pongsky.cloud.config.ServiceConfig;
+import com.pongsky.cloud.entity.user.vo.UserDisableVo;
+import com.pongsky.cloud.response.GlobalResult;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * 请求携带服务间调用 Token，见 {@link InnerFeignConfig}
+ *
+ * @author pengsenhao
+ * @create 2021-02-16
+ */
+@FeignClient(value = ServiceConfig.USER_SERVICE, contextId = "disabledUserFeign",
+        configuration = InnerFeignConfig.class)
+public interface DisabledUserFeign {
+
+    /**
+     * 查看用户禁用状态变更
+     *
+     * @param cursor 游标（毫秒时间戳），为空则查看全量
+     * @return 查看用户禁用状态变更
+     */
+    @GetMapping("/inner/user/disable")
+    GlobalResult<UserDisableVo> queryDisable(@RequestParam(value = "cursor", required = false) Long cursor);
+
+}
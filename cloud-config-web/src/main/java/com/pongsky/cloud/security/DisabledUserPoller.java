@@ -0,0 +1,81 @@
+package com.pongsky.cloud.security;
+
+import com.pongsky.cloud.entity.user.vo.UserDisableVo;
+import com.pongsky.cloud.response.GlobalResult;
+import com.pongsky.cloud.response.enums.ResultCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时从 user 服务拉取用户禁用状态变更
+ * <p>
+ * 首次拉取全量，之后按游标拉取增量；user 服务不可用时保留现有快照，不影响鉴权
+ *
+ * @author pengsenhao
+ * @create 2021-02-16
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DisabledUserPoller implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final DisabledUserFeign disabledUserFeign;
+
+    /**
+     * 是否启用
+     */
+    @Value("${application.security.disabled-user.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 拉取间隔
+     */
+    @Value("${application.security.disabled-user.poll-interval:10s}")
+    private Duration pollInterval;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "disabled-user-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(this::poll, 0L, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 拉取用户禁用状态变更
+     */
+    private void poll() {
+        try {
+            GlobalResult<UserDisableVo> result = disabledUserFeign.queryDisable(DisabledUserRegistry.getCursor());
+            if (!ResultCode.Success.getCode().equals(result.getCode()) || result.getData() == null) {
+                log.warn("拉取用户禁用状态失败：{}", result.getMessage());
+                return;
+            }
+            DisabledUserRegistry.apply(result.getData());
+        } catch (Exception e) {
+            log.warn("拉取用户禁用状态失败：{}", e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+}
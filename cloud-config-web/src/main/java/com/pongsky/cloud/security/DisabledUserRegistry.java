@@ -0,0 +1,92 @@
+package com.pongsky.cloud.security;
+
+import com.pongsky.cloud.entity.user.vo.UserDisableVo;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 已禁用用户登记表
+ * <p>
+ * 每个节点在内存中持有一份不可变快照，鉴权时 O(1) 判断且无任何 I/O，由 user 服务增量推送的变更替换快照
+ *
+ * @author pengsenhao
+ * @create 2021-02-16
+ */
+public class DisabledUserRegistry {
+
+    /**
+     * 已禁用用户ID快照
+     */
+    private static volatile Set<Long> disabledIds = Set.of();
+
+    /**
+     * 拉取游标
+     */
+    private static volatile Long cursor;
+
+    /**
+     * 判断用户是否已禁用
+     *
+     * @param userId 用户ID
+     * @return 判断用户是否已禁用
+     */
+    public static boolean isDisabled(Long userId) {
+        return userId != null && disabledIds.contains(userId);
+    }
+
+    /**
+     * 获取拉取游标
+     *
+     * @return 拉取游标，为空表示需要拉取全量
+     */
+    public static Long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * 获取已禁用用户数量
+     *
+     * @return 已禁用用户数量
+     */
+    public static int size() {
+        return disabledIds.size();
+    }
+
+    /**
+     * 应用全量/增量变更
+     *
+     * @param userDisableVo 禁用状态变更
+     */
+    public static synchronized void apply(UserDisableVo userDisableVo) {
+        Set<Long> ids = Boolean.TRUE.equals(userDisableVo.getFull()) ? new HashSet<>() : new HashSet<>(disabledIds);
+        if (userDisableVo.getEnabledIds() != null) {
+            ids.removeAll(userDisableVo.getEnabledIds());
+        }
+        if (userDisableVo.getDisabledIds() != null) {
+            ids.addAll(userDisableVo.getDisabledIds());
+        }
+        disabledIds = Set.copyOf(ids);
+        cursor = userDisableVo.getCursor();
+    }
+
+    /**
+     * 立即更新单个用户禁用状态（本节点）
+     *
+     * @param userId   用户ID
+     * @param disabled 是否禁用
+     */
+    public static synchronized void update(Long userId, boolean disabled) {
+        if (disabled == disabledIds.contains(userId)) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(disabledIds);
+        if (disabled) {
+            ids.add(userId);
+        } else {
+            ids.remove(userId);
+        }
+        disabledIds = Set.copyOf(ids);
+    }
+
+}
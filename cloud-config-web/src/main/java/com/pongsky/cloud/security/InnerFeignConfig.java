@@ -0,0 +1,60 @@
+package com.pongsky.cloud.security;
+
+import com.pongsky.cloud.utils.jwt.JwtUtils;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import com.pongsky.cloud.web.request.AuthUtils;
+import com.pongsky.cloud.web.request.SystemConfigUtils;
+import feign.RequestInterceptor;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务间调用 Feign 配置
+ * <p>
+ * 请求携带以 {@link AuthRole#INNER} 角色签发的 Token，服务间调用接口据此鉴权；
+ * Token 与用户 Token 使用同一组签名密钥，只有持有密钥的服务能够签发。
+ * 仅供 {@code @FeignClient(configuration = ...)} 引用，不可被组件扫描，否则将作用于所有 Feign 客户端
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class InnerFeignConfig {
+
+    /**
+     * Token 重新签发间隔，短于 Token 有效期（2 小时）
+     */
+    private static final long REISSUE_INTERVAL = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * 服务间调用 Token
+     */
+    private volatile String token;
+
+    /**
+     * 下次重新签发 Token 的时间（System.nanoTime）
+     */
+    private volatile long reissueAt;
+
+    @Bean
+    public RequestInterceptor innerCallInterceptor() {
+        return template -> template.header(AuthUtils.AUTHORIZATION, AuthUtils.TOKEN_PREFIX + getToken());
+    }
+
+    /**
+     * 获取服务间调用 Token，临近过期时重新签发
+     *
+     * @return 服务间调用 Token
+     */
+    private String getToken() {
+        String current = token;
+        if (current == null || System.nanoTime() - reissueAt >= 0) {
+            current = JwtUtils.createAccessToken("0", AuthRole.INNER_ROLE,
+                    SystemConfigUtils.getActive(), SystemConfigUtils.getApplicationName());
+            reissueAt = System.nanoTime() + REISSUE_INTERVAL;
+            token = current;
+        }
+        return current;
+    }
+
+}
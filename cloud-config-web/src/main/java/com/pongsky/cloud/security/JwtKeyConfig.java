@@ -0,0 +1,77 @@
+package com.pongsky.cloud.security;
+
+import com.pongsky.cloud.utils.jwt.JwtUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token 签名密钥配置
+ * <p>
+ * 密钥格式为 kid:secret，多个以逗号分隔。轮换密钥时先在所有服务中追加新密钥，
+ * 再将 active-key-id 切换为新密钥ID，待旧 Token 全部过期后移除旧密钥即可，期间已签发的 Token 不会失效
+ *
+ * @author pengsenhao
+ * @create 2021-02-15
+ */
+@Slf4j
+@Component
+public class JwtKeyConfig {
+
+    /**
+     * 密钥ID与密钥的分隔符
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * 密钥列表
+     */
+    @Value("${application.security.jwt.keys:}")
+    private String[] keys;
+
+    /**
+     * 签发密钥ID，为空则使用最后一个密钥
+     */
+    @Value("${application.security.jwt.active-key-id:}")
+    private String activeKeyId;
+
+    @PostConstruct
+    public void init() {
+        Map<String, String> secrets = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (StringUtils.isBlank(key)) {
+                continue;
+            }
+            int index = key.indexOf(SEPARATOR);
+            if (index <= 0 || index == key.length() - 1) {
+                throw new IllegalArgumentException("application.security.jwt.keys 格式错误，应为 kid:secret");
+            }
+            secrets.put(key.substring(0, index).trim(), key.substring(index + 1).trim());
+        }
+        if (secrets.isEmpty()) {
+            log.info("未配置 Token 签名密钥，使用默认密钥 [{}]", JwtUtils.DEFAULT_KEY_ID);
+            return;
+        }
+        String signingKeyId = StringUtils.isNotBlank(activeKeyId)
+                ? activeKeyId
+                : secrets.keySet().stream().reduce((first, second) -> second).orElseThrow();
+        if (!secrets.containsKey(signingKeyId)) {
+            throw new IllegalArgumentException("application.security.jwt.active-key-id [" + signingKeyId + "] 不存在");
+        }
+        secrets.forEach((keyId, secret) -> {
+            if (!keyId.equals(signingKeyId)) {
+                JwtUtils.KEY_RING.add(keyId, secret);
+            }
+        });
+        JwtUtils.KEY_RING.rotate(signingKeyId, secrets.get(signingKeyId));
+        JwtUtils.KEY_RING.retainAll(secrets.keySet());
+        VerifiedTokenCache.invalidateAll();
+        log.info("Token 签名密钥 {}，当前签发密钥 [{}]", secrets.keySet(), signingKeyId);
+    }
+
+}
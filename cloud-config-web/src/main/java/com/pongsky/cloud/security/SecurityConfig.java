@@ -1,6 +1,13 @@
 package com.pongsky.cloud.security;
 
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
 import com.pongsky.cloud.web.request.AuthUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,6 +22,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import javax.annotation.Resource;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -32,32 +40,93 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Resource
     private AuthenticationFilter authenticationFilter;
 
+    /**
+     * 密码加密
+     * <p>
+     * 开启校准后根据本机耗时在最小强度与最大强度之间选择强度，否则使用固定强度
+     *
+     * @param strength      固定强度
+     * @param calibrate     是否开启校准
+     * @param targetLatency 校准目标耗时
+     * @param minStrength   校准最小强度
+     * @param maxStrength   校准最大强度
+     * @return 密码加密
+     */
     @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder bCryptPasswordEncoder(
+            @Value("${application.security.bcrypt.strength:10}") int strength,
+            @Value("${application.security.bcrypt.calibrate:false}") boolean calibrate,
+            @Value("${application.security.bcrypt.target-latency:250ms}") Duration targetLatency,
+            @Value("${application.security.bcrypt.min-strength:10}") int minStrength,
+            @Value("${application.security.bcrypt.max-strength:14}") int maxStrength) {
+        if (calibrate) {
+            strength = CalibratedPasswordEncoder.calibrate(targetLatency, minStrength, maxStrength);
+        }
+        return new CalibratedPasswordEncoder(strength);
     }
 
     /**
-     * 配置跨域请求
+     * 配置跨域请求、actuator 端点访问权限
+     * <p>
+     * health、info 供探针与注册中心使用，其余 actuator 端点（如 metrics）仅管理员可访问；
+     * 业务接口的访问权限由 {@code @PreAuthorize} 控制
      *
      * @param http http
      * @throws Exception 异常
      */
     @Override
     protected void configure(HttpSecurity http) throws Exception {
-        http.cors().configurationSource(corsConfigurationSource())
+        http.cors()
                 .and().csrf().disable()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and().authorizeRequests()
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class)).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole(AuthRole.ADMIN_ROLE)
+                .anyRequest().permitAll()
                 .and().addFilterBefore(authenticationFilter, UsernamePasswordAuthenticationFilter.class);
     }
 
+    /**
+     * 路径与预检请求缓存时间的分隔符
+     */
+    private static final String SEPARATOR = ":";
+
     /**
      * 配置跨域请求
+     * <p>
+     * 预检请求缓存时间可按路径单独配置（按配置顺序匹配），其余路径使用默认缓存时间
      *
+     * @param maxAge      预检请求默认缓存时间
+     * @param pathMaxAges 路径 - 预检请求缓存时间
      * @return 跨域请求
      */
     @Bean
-    CorsConfigurationSource corsConfigurationSource() {
+    CorsConfigurationSource corsConfigurationSource(
+            @Value("${application.cors.max-age:30m}") Duration maxAge,
+            @Value("${application.cors.path-max-ages:}") String[] pathMaxAges) {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        for (String pathMaxAge : pathMaxAges) {
+            if (StringUtils.isBlank(pathMaxAge)) {
+                continue;
+            }
+            int index = pathMaxAge.lastIndexOf(SEPARATOR);
+            if (index <= 0 || index == pathMaxAge.length() - 1) {
+                throw new IllegalArgumentException("application.cors.path-max-ages 格式错误，应为 path:duration");
+            }
+            source.registerCorsConfiguration(pathMaxAge.substring(0, index).trim(),
+                    corsConfiguration(DurationStyle.detectAndParse(pathMaxAge.substring(index + 1).trim())));
+        }
+        source.registerCorsConfiguration("/**", corsConfiguration(maxAge));
+        return source;
+    }
+
+    /**
+     * 跨域请求配置
+     *
+     * @param maxAge 预检请求缓存时间
+     * @return 跨域请求配置
+     */
+    private static CorsConfiguration corsConfiguration(Duration maxAge) {
         CorsConfiguration corsConfiguration = new CorsConfiguration();
         corsConfiguration.setAllowedOrigins(Collections.singletonList("*"));
         List<String> methods = List.of(RequestMethod.PATCH, RequestMethod.OPTIONS,
@@ -67,11 +136,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         corsConfiguration.setAllowedMethods(methods);
         corsConfiguration.setAllowedHeaders(Collections.singletonList("*"));
         corsConfiguration.setAllowCredentials(true);
-        corsConfiguration.setMaxAge(0L);
+        corsConfiguration.setMaxAge(maxAge);
         corsConfiguration.addExposedHeader(AuthUtils.AUTHORIZATION);
-        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
-        source.registerCorsConfiguration("/**", corsConfiguration);
-        return source;
+        return corsConfiguration;
     }
 
 }
\ No newline at end of file
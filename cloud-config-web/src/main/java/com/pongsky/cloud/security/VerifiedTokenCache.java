@@ -0,0 +1,121 @@
+package com.pongsky.cloud.security;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pongsky.cloud.utils.jwt.JwtUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已校验 Token 缓存
+ * <p>
+ * 以 Token 的 SHA-256 摘要为 key，缓存签名校验通过的载体，缓存在 Token 的 exp 时间点失效
+ *
+ * @author pengsenhao
+ * @create 2021-02-15
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * 缓存名称
+     */
+    public static final String CACHE_NAME = "auth.token";
+
+    /**
+     * 默认缓存最大数量
+     */
+    private static final long DEFAULT_MAXIMUM_SIZE = 10000L;
+
+    /**
+     * 摘要算法
+     */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> MESSAGE_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e.getLocalizedMessage(), e);
+        }
+    });
+
+    /**
+     * 已校验 Token 缓存
+     */
+    private static final Cache<ByteBuffer, DecodedJWT> CACHE = Caffeine.newBuilder()
+            .maximumSize(DEFAULT_MAXIMUM_SIZE)
+            .expireAfter(new Expiry<ByteBuffer, DecodedJWT>() {
+                @Override
+                public long expireAfterCreate(ByteBuffer key, DecodedJWT jwt, long currentTime) {
+                    Date expiresAt = jwt.getExpiresAt();
+                    if (expiresAt == null) {
+                        return 0L;
+                    }
+                    long remaining = expiresAt.getTime() - System.currentTimeMillis();
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0L));
+                }
+
+                @Override
+                public long expireAfterUpdate(ByteBuffer key, DecodedJWT jwt,
+                                              long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(ByteBuffer key, DecodedJWT jwt,
+                                            long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .build();
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, CACHE, CACHE_NAME);
+    }
+
+    @Value("${application.security.token-cache-size:" + DEFAULT_MAXIMUM_SIZE + "}")
+    public void setMaximumSize(long maximumSize) {
+        CACHE.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maximumSize));
+    }
+
+    /**
+     * 校验 Token，命中缓存则跳过签名校验（校验失败将会报错）
+     *
+     * @param token token
+     * @return 载体
+     */
+    public static DecodedJWT verify(String token) {
+        return CACHE.get(digest(token), key -> JwtUtils.verify(token));
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * 计算 Token 摘要
+     *
+     * @param token token
+     * @return Token 摘要
+     */
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(MESSAGE_DIGEST.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.pongsky.cloud.web.aspect;
+
+import com.pongsky.cloud.exception.FrequencyException;
+import com.pongsky.cloud.model.annotation.RateLimited;
+import com.pongsky.cloud.model.emums.RateLimitKey;
+import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import com.pongsky.cloud.web.limit.RateLimiter;
+import com.pongsky.cloud.web.limit.TokenBucketSketch;
+import com.pongsky.cloud.web.request.AuthUtils;
+import com.pongsky.cloud.web.request.IpUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 接口限流
+ * <p>
+ * 标注 {@link RateLimited} 的接口按限流维度获取令牌，获取失败时抛出 {@link FrequencyException}；
+ * 先于请求日志等切面执行，被拒绝的请求不再进入业务逻辑。被拒绝次数通过 rate.limit.rejected 指标查看
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitAround {
+
+    /**
+     * 被拒绝次数指标名称
+     */
+    private static final String REJECTED_COUNTER_NAME = "rate.limit.rejected";
+
+    /**
+     * 令牌桶数量指标名称
+     */
+    private static final String BUCKETS_GAUGE_NAME = "rate.limit.buckets";
+
+    /**
+     * 按接口限流时共用的 key
+     */
+    private static final String ROUTE_KEY = "route";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 每个限流规则的最大令牌桶数量
+     */
+    private final int maxBuckets;
+
+    /**
+     * 所有限流规则共用的令牌桶 sketch
+     */
+    private final TokenBucketSketch sketch;
+
+    /**
+     * 接口方法 - 限流规则
+     */
+    private final ConcurrentMap<Method, Rule> rules = new ConcurrentHashMap<>();
+
+    public RateLimitAround(MeterRegistry meterRegistry,
+                           @Value("${application.rate-limit.max-buckets:10000}") int maxBuckets,
+                           @Value("${application.rate-limit.sketch-depth:4}") int sketchDepth,
+                           @Value("${application.rate-limit.sketch-width:16384}") int sketchWidth) {
+        this.meterRegistry = meterRegistry;
+        this.maxBuckets = maxBuckets;
+        this.sketch = new TokenBucketSketch(sketchDepth, sketchWidth);
+    }
+
+    @Before("execution(public * com.pongsky.cloud.controller..*.*(..)) "
+            + "&& (@annotation(com.pongsky.cloud.model.annotation.RateLimited) "
+            + "|| @within(com.pongsky.cloud.model.annotation.RateLimited))")
+    public void before(JoinPoint joinPoint) {
+        ServletRequestAttributes requestAttributes
+                = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return;
+        }
+        Rule rule = rules.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> register(method, joinPoint.getTarget().getClass()));
+        if (!rule.limiter.tryAcquire(getKey(rule.key, requestAttributes.getRequest()))) {
+            throw new FrequencyException("请求过于频繁，请稍后再试");
+        }
+    }
+
+    /**
+     * 获取限流维度的值
+     *
+     * @param key     限流维度
+     * @param request request
+     * @return 限流维度的值
+     */
+    private static Object getKey(RateLimitKey key, HttpServletRequest request) {
+        switch (key) {
+            case USER:
+                AuthInfo authInfo = AuthUtils.getUser(request);
+                // 未登录时按 IP 限流
+                return authInfo.getRole() != AuthRole.PUBLIC ? authInfo.getId() : IpUtils.getIp(request);
+            case ROUTE:
+                return ROUTE_KEY;
+            case IP:
+            default:
+                return IpUtils.getIp(request);
+        }
+    }
+
+    /**
+     * 解析接口方法的限流规则，方法上的注解优先于类上的注解
+     *
+     * @param method      接口方法
+     * @param targetClass 接口所在类
+     * @return 限流规则
+     */
+    private Rule register(Method method, Class<?> targetClass) {
+        RateLimited rateLimited = AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class);
+        if (rateLimited == null) {
+            rateLimited = AnnotatedElementUtils.findMergedAnnotation(targetClass, RateLimited.class);
+        }
+        if (rateLimited == null) {
+            throw new IllegalStateException("未找到限流注解：" + method);
+        }
+        String route = targetClass.getSimpleName() + "." + method.getName();
+        Counter rejected = Counter.builder(REJECTED_COUNTER_NAME)
+                .description("限流拒绝次数")
+                .tag("route", route)
+                .tag("key", rateLimited.key().name())
+                .register(meterRegistry);
+        RateLimiter limiter = new RateLimiter(rateLimited.permits(),
+                rateLimited.timeUnit().toNanos(rateLimited.period()),
+                method.toGenericString().hashCode(), maxBuckets, sketch, rejected);
+        Gauge.builder(BUCKETS_GAUGE_NAME, limiter, RateLimiter::size)
+                .description("限流令牌桶数量")
+                .tag("route", route)
+                .tag("key", rateLimited.key().name())
+                .register(meterRegistry);
+        return new Rule(rateLimited.key(), limiter);
+    }
+
+    /**
+     * 限流规则
+     */
+    @RequiredArgsConstructor
+    private static class Rule {
+
+        /**
+         * 限流维度
+         */
+        private final RateLimitKey key;
+
+        private final RateLimiter limiter;
+
+    }
+
+}
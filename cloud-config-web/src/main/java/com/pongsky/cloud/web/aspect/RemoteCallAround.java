@@ -1,52 +1,173 @@
 package com.pongsky.cloud.web.aspect;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pongsky.cloud.exception.RemoteCallException;
 import com.pongsky.cloud.response.GlobalResult;
 import com.pongsky.cloud.response.enums.ResultCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * 远程调用耗时打印、校验远程调用响应数据
+ * 远程调用耗时统计、校验远程调用响应数据
+ * <p>
+ * 按 Feign 客户端、方法、结果记录耗时分布（remote.call），按响应码记录远程调用异常次数（remote.call.exception），
+ * 通过 actuator 查看；响应数据不再序列化打印，请求与响应日志见 Feign 日志。
+ * 除 feign 包下的客户端外，同时覆盖 security 包下拉取用户禁用状态的 DisabledUserFeign
  *
  * @author pengsenhao
  * @create 2021-02-14
  */
-@Slf4j
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class RemoteCallAround {
 
-    private final ObjectMapper jsonMapper;
+    /**
+     * 耗时指标名称
+     */
+    private static final String TIMER_NAME = "remote.call";
+
+    /**
+     * 远程调用异常指标名称
+     */
+    private static final String EXCEPTION_COUNTER_NAME = "remote.call.exception";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 方法 - 指标
+     */
+    private final ConcurrentMap<Method, RemoteCallMeters> meters = new ConcurrentHashMap<>();
 
-    @Around("execution(public * com.pongsky.cloud.feign..*.*(..))")
+    @Around("execution(public * com.pongsky.cloud.feign..*.*(..)) "
+            + "|| execution(public * com.pongsky.cloud.security.DisabledUserFeign.*(..))")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
-        ServletRequestAttributes requestAttributes
-                = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (requestAttributes == null) {
-            return null;
+        RemoteCallMeters callMeters = meters.computeIfAbsent(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), this::register);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            callMeters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
         }
-        long start = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        log.info("Started remote call request");
-        log.info("response is [{}]", jsonMapper.writeValueAsString(result));
-        log.info("cost [{}] ms", System.currentTimeMillis() - start);
-        log.info("Ended remote call request");
+        long cost = System.nanoTime() - start;
         if (result instanceof GlobalResult) {
             GlobalResult<?> globalResult = (GlobalResult<?>) result;
             if (!globalResult.getCode().equals(ResultCode.Success.getCode())) {
+                callMeters.failure.record(cost, TimeUnit.NANOSECONDS);
+                callMeters.exception(meterRegistry, globalResult.getCode()).increment();
                 throw new RemoteCallException(globalResult);
             }
         }
+        callMeters.success.record(cost, TimeUnit.NANOSECONDS);
         return result;
     }
 
+    /**
+     * 注册方法的耗时指标
+     *
+     * @param method 方法
+     * @return 指标
+     */
+    private RemoteCallMeters register(Method method) {
+        String client = method.getDeclaringClass().getSimpleName();
+        String name = method.getName();
+        return new RemoteCallMeters(client, name,
+                timer(client, name, Outcome.SUCCESS),
+                timer(client, name, Outcome.FAILURE),
+                timer(client, name, Outcome.ERROR));
+    }
+
+    /**
+     * 注册耗时指标
+     *
+     * @param client  客户端
+     * @param method  方法
+     * @param outcome 结果
+     * @return 耗时指标
+     */
+    private Timer timer(String client, String method, Outcome outcome) {
+        return Timer.builder(TIMER_NAME)
+                .description("远程调用耗时")
+                .tag("client", client)
+                .tag("method", method)
+                .tag("outcome", outcome.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 远程调用结果
+     */
+    private enum Outcome {
+
+        /**
+         * 调用成功
+         */
+        SUCCESS,
+
+        /**
+         * 响应码不为成功（RemoteCallException）
+         */
+        FAILURE,
+
+        /**
+         * 调用异常（连接失败、超时、解码失败等）
+         */
+        ERROR
+
+    }
+
+    /**
+     * 单个远程调用方法的指标
+     */
+    @RequiredArgsConstructor
+    private static class RemoteCallMeters {
+
+        private final String client;
+
+        private final String method;
+
+        private final Timer success;
+
+        private final Timer failure;
+
+        private final Timer error;
+
+        /**
+         * 响应码 - 远程调用异常次数
+         */
+        private final ConcurrentMap<Integer, Counter> exceptions = new ConcurrentHashMap<>();
+
+        /**
+         * 获取响应码对应的远程调用异常次数
+         *
+         * @param meterRegistry meterRegistry
+         * @param code          响应码
+         * @return 远程调用异常次数
+         */
+        private Counter exception(MeterRegistry meterRegistry, Integer code) {
+            return exceptions.computeIfAbsent(code, key -> Counter.builder(EXCEPTION_COUNTER_NAME)
+                    .description("远程调用异常次数")
+                    .tag("client", client)
+                    .tag("method", method)
+                    .tag("code", String.valueOf(key))
+                    .register(meterRegistry));
+        }
+
+    }
+
 }
@@ -1,48 +1,46 @@
 package com.pongsky.cloud.web.aspect;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pongsky.cloud.model.emums.RouteType;
 import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
+import com.pongsky.cloud.web.log.AccessLogRecord;
+import com.pongsky.cloud.web.log.AccessLogWriter;
+import com.pongsky.cloud.web.log.PayloadLogPolicy;
 import com.pongsky.cloud.web.request.AuthUtils;
 import com.pongsky.cloud.web.request.IpUtils;
-import com.pongsky.cloud.web.request.RequestUtils;
+import com.pongsky.cloud.web.route.RouteMetadata;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.springframework.stereotype.Component;
-import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.List;
-import java.util.Optional;
 
 /**
  * 请求参数、响应数据 统一日志打印
+ * <p>
+ * 每个请求生成一条访问日志交由 {@link AccessLogWriter} 异步输出，请求耗时不包含日志 I/O；
+ * 响应数据在请求线程中序列化为不超过最大长度的快照，不将返回对象交给后台线程，避免其在输出前被修改或长期占用内存；
+ * 是否输出、请求与响应数据的截断由 {@link PayloadLogPolicy} 决定，异常请求与慢请求始终输出；
+ * 探针接口直接跳过，公开接口不解析 Token
  *
  * @author pengsenhao
  * @create 2021-02-11
  */
-@Slf4j
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class RestControllerAround {
 
-    private final ObjectMapper jsonMapper;
+    private final AccessLogWriter accessLogWriter;
 
-    /**
-     * 需要记录的请求方法集合
-     */
-    private static final List<String> API_REQUEST_METHODS = List.of(
-            PutMapping.class.getSimpleName(),
-            PostMapping.class.getSimpleName(),
-            DeleteMapping.class.getSimpleName()
-    );
+    private final PayloadLogPolicy payloadLogPolicy;
+
+    private final ObjectMapper jsonMapper;
 
     @Around("execution(public * com.pongsky.cloud.controller..*.*(..))")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -52,32 +50,58 @@ public class RestControllerAround {
             return null;
         }
         HttpServletRequest request = requestAttributes.getRequest();
-        AuthInfo authInfo = AuthUtils.getUser(request);
-        String ip = IpUtils.getIp(request);
-        String userAgent = request.getHeader("user-agent");
-        String referer = request.getHeader("referer");
+        RouteMetadata routeMetadata = RouteMetadata.get(request);
+        if (routeMetadata == null || !routeMetadata.isLogged()) {
+            return joinPoint.proceed();
+        }
         long start = System.currentTimeMillis();
-        Object result = joinPoint.proceed();
-        long count = API_REQUEST_METHODS.stream()
-                .filter(method -> request.getAttribute(method) != null)
-                .count();
-        if (count > 0) {
-            log.info("");
-            log.info("Started request");
-            log.info("IP [{}] userAgent [{}] referer [{}]", ip, userAgent, referer);
-            log.info("ID [{}] ROLE [{}] methodURL [{}] methodType [{}] params [{}] body [{}]",
-                    authInfo.getId(),
-                    authInfo.getRole(),
-                    request.getRequestURI(),
-                    request.getMethod(),
-                    Optional.ofNullable(request.getQueryString()).orElse(""),
-                    RequestUtils.getBody(request));
-            log.info("response is [{}]", jsonMapper.writeValueAsString(Optional.ofNullable(result).orElse("")));
-            log.info("cost [{}] ms", System.currentTimeMillis() - start);
-            log.info("Ended request");
-            log.info("");
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long cost = System.currentTimeMillis() - start;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (payloadLogPolicy.shouldLog(pattern != null ? pattern.toString() : null,
+                    request.getRequestURI(), cost, error != null)) {
+                // 公开接口不解析 Token
+                AuthInfo authInfo = routeMetadata.getRouteType() == RouteType.PUBLIC
+                        ? AuthInfo.PUBLIC_INFO
+                        : AuthUtils.getUser(request);
+                accessLogWriter.publish(new AccessLogRecord()
+                        .setTimestamp(start)
+                        .setIp(IpUtils.getIp(request))
+                        .setUserAgent(request.getHeader("user-agent"))
+                        .setReferer(request.getHeader("referer"))
+                        .setUserId(authInfo.getId())
+                        .setRole(authInfo.getRole())
+                        .setUri(request.getRequestURI())
+                        .setMethod(request.getMethod())
+                        .setParams(request.getQueryString())
+                        .setBody(payloadLogPolicy.getBody(request))
+                        .setResponse(snapshot(result))
+                        .setError(error != null ? error.toString() : null)
+                        .setCost(cost));
+            }
+        }
+    }
+
+    /**
+     * 序列化响应数据快照，超过最大长度时截断，序列化失败时记录失败原因
+     *
+     * @param result 响应数据
+     * @return 响应数据快照
+     */
+    private Object snapshot(Object result) {
+        try {
+            return payloadLogPolicy.toLoggable(jsonMapper, result);
+        } catch (IllegalStateException e) {
+            return "响应数据" + e.getLocalizedMessage();
         }
-        return result;
     }
 
 }
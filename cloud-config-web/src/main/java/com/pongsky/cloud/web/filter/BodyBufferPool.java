@@ -0,0 +1,58 @@
+package com.pongsky.cloud.web.filter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * body 缓冲块池
+ * <p>
+ * body 按固定大小的块缓存，请求结束后归还，池满时多余的块交由 GC 回收
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class BodyBufferPool {
+
+    /**
+     * 缓冲块大小
+     */
+    public static final int CHUNK_SIZE = 8192;
+
+    /**
+     * 空闲缓冲块
+     */
+    private final BlockingQueue<byte[]> chunks;
+
+    public BodyBufferPool(int capacity) {
+        this.chunks = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+    }
+
+    /**
+     * 获取缓冲块，池中没有则新建
+     *
+     * @return 缓冲块
+     */
+    public byte[] acquire() {
+        byte[] chunk = chunks.poll();
+        return chunk != null ? chunk : new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * 归还缓冲块
+     *
+     * @param chunk 缓冲块
+     */
+    public void release(byte[] chunk) {
+        chunks.offer(chunk);
+    }
+
+    /**
+     * 获取空闲缓冲块数量
+     *
+     * @return 空闲缓冲块数量
+     */
+    public int size() {
+        return chunks.size();
+    }
+
+}
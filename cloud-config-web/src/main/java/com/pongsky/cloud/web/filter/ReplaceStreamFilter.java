@@ -1,8 +1,13 @@
 package com.pongsky.cloud.web.filter;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -12,6 +17,7 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 替换 HttpServletRequest，实现 body 数据多次读取
@@ -23,6 +29,28 @@ import java.util.List;
 @Configuration
 public class ReplaceStreamFilter implements Filter {
 
+    /**
+     * body 内存阈值，超过后转存至临时文件
+     */
+    @Value("${application.request.spill-threshold:256KB}")
+    private DataSize spillThreshold;
+
+    /**
+     * body 最大缓存大小，超过后不再记录
+     */
+    @Value("${application.request.max-body-size:100MB}")
+    private DataSize maxBodySize;
+
+    /**
+     * body 缓冲块池
+     */
+    private BodyBufferPool bodyBufferPool;
+
+    @Value("${application.request.body-pool-size:256}")
+    public void setBodyPoolSize(int bodyPoolSize) {
+        bodyBufferPool = new BodyBufferPool(bodyPoolSize);
+    }
+
     @Override
     public void init(FilterConfig filterConfig) {
     }
@@ -35,6 +63,15 @@ public class ReplaceStreamFilter implements Filter {
             "multipart/form-data"
     );
 
+    /**
+     * 需要记录 body 的请求方法
+     */
+    private static final Set<String> CAPTURE_METHODS = Set.of(
+            HttpMethod.PUT.name(),
+            HttpMethod.POST.name(),
+            HttpMethod.DELETE.name()
+    );
+
     /**
      * 判断是否切换request
      *
@@ -45,6 +82,10 @@ public class ReplaceStreamFilter implements Filter {
         if (request.getContentType() == null) {
             return false;
         }
+        if (!CAPTURE_METHODS.contains(((HttpServletRequest) request).getMethod())) {
+            // GET、HEAD 等请求不打印 body，无需切换request
+            return false;
+        }
         for (String type : UPLOAD_FILE_CONTENT_TYPE) {
             if (request.getContentType().startsWith(type)) {
                 // binary 形式上传文件，不读取body数据，并且不切换request
@@ -59,7 +100,18 @@ public class ReplaceStreamFilter implements Filter {
                          ServletResponse response,
                          FilterChain chain) throws IOException, ServletException {
         if (isCheckRequest(request)) {
-            chain.doFilter(new RequestWrapper((HttpServletRequest) request), response);
+            RequestWrapper requestWrapper = new RequestWrapper((HttpServletRequest) request, bodyBufferPool,
+                    (int) Math.min(spillThreshold.toBytes(), Integer.MAX_VALUE), maxBodySize.toBytes());
+            try {
+                chain.doFilter(requestWrapper, response);
+            } finally {
+                // 异步请求在其他线程继续读取，结束后再归还缓冲块并删除临时文件
+                if (requestWrapper.isAsyncStarted()) {
+                    requestWrapper.getAsyncContext().addListener(new ReleaseListener(requestWrapper));
+                } else {
+                    requestWrapper.release();
+                }
+            }
         } else {
             chain.doFilter(request, response);
         }
@@ -69,4 +121,38 @@ public class ReplaceStreamFilter implements Filter {
     public void destroy() {
     }
 
+    /**
+     * 异步请求结束（完成、异常、超时）时归还缓冲块并删除临时文件
+     */
+    private static class ReleaseListener implements AsyncListener {
+
+        private final RequestWrapper requestWrapper;
+
+        private ReleaseListener(RequestWrapper requestWrapper) {
+            this.requestWrapper = requestWrapper;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            requestWrapper.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            requestWrapper.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            requestWrapper.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 重新开始异步处理时监听器会被移除，需重新注册
+            event.getAsyncContext().addListener(this);
+        }
+
+    }
+
 }
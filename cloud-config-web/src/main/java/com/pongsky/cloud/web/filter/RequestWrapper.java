@@ -1,73 +1,526 @@
 package com.pongsky.cloud.web.filter;
 
+import com.pongsky.cloud.web.route.RouteMetadata;
+import lombok.extern.slf4j.Slf4j;
+
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 替换 HttpServletRequest，实现 body 数据多次读取
+ * <p>
+ * body 不会提前读取，controller 读取时同步将原始字节记录至 {@link BodyBufferPool} 的缓冲块中（边读边存），
+ * 只有需要打印日志的接口（PUT、POST、DELETE 注解）才会记录；获取 body 时未读取完的部分按需补读。
+ * 记录超过内存阈值后转存至临时文件，重新读取时按位置读取文件通道，堆内存占用与 body 大小无关；
+ * 不使用内存映射，关闭通道后临时文件即被删除、释放磁盘空间，无需等待 GC 回收映射；
+ * body 超过最大缓存大小时不再记录。请求结束后需调用 {@link #release()} 归还缓冲块并删除临时文件
  *
  * @author pengsenhao
  * @create 2021-02-11
  */
+@Slf4j
 public class RequestWrapper extends HttpServletRequestWrapper {
 
     /**
-     * 存储body数据的容器
+     * 临时文件前缀
+     */
+    private static final String SPILL_FILE_PREFIX = "request-body-";
+
+    private final BodyBufferPool pool;
+
+    /**
+     * 内存阈值，超过后转存至临时文件
+     */
+    private final int spillThreshold;
+
+    /**
+     * 最大缓存大小
+     */
+    private final long maxBodySize;
+
+    /**
+     * 存储body数据的缓冲块
      */
-    private final byte[] body;
+    private final List<byte[]> chunks = new ArrayList<>();
 
-    public RequestWrapper(HttpServletRequest request) {
+    /**
+     * 单字节读取时的缓冲
+     */
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * 已缓存的字节数
+     */
+    private long length;
+
+    /**
+     * 是否记录 body，首次读取时根据接口决定，null 表示尚未决定
+     */
+    private Boolean capture;
+
+    /**
+     * body 是否超过最大缓存大小
+     */
+    private boolean overflow;
+
+    /**
+     * 临时文件
+     */
+    private Path spillFile;
+
+    /**
+     * 临时文件通道
+     */
+    private FileChannel spillChannel;
+
+    /**
+     * 边读边存的输入流
+     */
+    private TeeInputStream teeInputStream;
+
+    /**
+     * 缓冲块是否已归还
+     */
+    private volatile boolean released;
+
+    public RequestWrapper(HttpServletRequest request, BodyBufferPool pool, int spillThreshold, long maxBodySize) {
         super(request);
-        StringBuilder stringBuilder = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(),
-                Charset.defaultCharset()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                stringBuilder.append(line);
+        this.pool = pool;
+        this.spillThreshold = spillThreshold;
+        this.maxBodySize = maxBodySize;
+        // 已知超过最大缓存大小，不记录
+        this.overflow = request.getContentLengthLong() > this.maxBodySize;
+    }
+
+    /**
+     * 是否需要记录 body
+     *
+     * @return 是否需要记录 body
+     */
+    private boolean isCapturing() {
+        if (capture == null) {
+            capture = isLoggedRoute();
+        }
+        return capture && !overflow && !released;
+    }
+
+    /**
+     * 当前接口是否需要打印 body 日志
+     * <p>
+     * 尚未匹配到接口时（如在 filter 中读取）默认记录
+     *
+     * @return 当前接口是否需要打印 body 日志
+     */
+    private boolean isLoggedRoute() {
+        RouteMetadata routeMetadata = RouteMetadata.get(this);
+        return routeMetadata == null || routeMetadata.isLogged();
+    }
+
+    /**
+     * 记录读取到的字节
+     *
+     * @param b   字节
+     * @param off 偏移量
+     * @param len 长度
+     * @throws IOException 写入临时文件异常
+     */
+    private void record(byte[] b, int off, int len) throws IOException {
+        if (!isCapturing()) {
+            return;
+        }
+        if (length + len > maxBodySize) {
+            overflow = true;
+            return;
+        }
+        if (spillChannel == null && length + len > spillThreshold) {
+            spill();
+        }
+        if (spillChannel != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while (buffer.hasRemaining()) {
+                spillChannel.write(buffer);
+            }
+            length += len;
+            return;
+        }
+        while (len > 0) {
+            int offset = (int) (length % BodyBufferPool.CHUNK_SIZE);
+            if (offset == 0) {
+                chunks.add(pool.acquire());
+            }
+            int count = Math.min(BodyBufferPool.CHUNK_SIZE - offset, len);
+            System.arraycopy(b, off, chunks.get(chunks.size() - 1), offset, count);
+            length += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * 记录读取到的单个字节
+     *
+     * @param b 字节
+     * @throws IOException 写入临时文件异常
+     */
+    private void record(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        record(singleByte, 0, 1);
+    }
+
+    /**
+     * 将已记录的缓冲块转存至临时文件，并归还缓冲块
+     *
+     * @throws IOException 写入临时文件异常
+     */
+    private void spill() throws IOException {
+        spillFile = Files.createTempFile(SPILL_FILE_PREFIX, ".tmp");
+        spillChannel = FileChannel.open(spillFile, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        long remaining = length;
+        for (byte[] chunk : chunks) {
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, (int) Math.min(BodyBufferPool.CHUNK_SIZE, remaining));
+            remaining -= buffer.remaining();
+            while (buffer.hasRemaining()) {
+                spillChannel.write(buffer);
+            }
+            pool.release(chunk);
+        }
+        chunks.clear();
+    }
+
+    /**
+     * 补读未读取完的 body（已转存至临时文件时不再补读）
+     */
+    private void drain() {
+        drain(Long.MAX_VALUE);
+    }
+
+    /**
+     * 补读未读取完的 body，直至已缓存 limit 个字节（已转存至临时文件时不再补读）
+     *
+     * @param limit 需要缓存的字节数
+     */
+    private void drain(long limit) {
+        if (!isCapturing() || spillChannel != null) {
+            return;
+        }
+        try {
+            TeeInputStream inputStream = getTeeInputStream();
+            byte[] buffer = new byte[BodyBufferPool.CHUNK_SIZE];
+            while (!overflow && spillChannel == null && length < limit
+                    && inputStream.read(buffer, 0, buffer.length) != -1) {
+                // 读取过程中已记录
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * body 是否超过最大缓存大小
+     *
+     * @return body 是否超过最大缓存大小
+     */
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * body 是否已转存至临时文件
+     *
+     * @return body 是否已转存至临时文件
+     */
+    public boolean isSpilled() {
+        return spillChannel != null;
+    }
+
+    /**
+     * 获取已缓存的 body
+     *
+     * @return 已缓存的 body，无需记录、超过内存阈值、超过最大缓存大小或已归还返回 null
+     */
+    public byte[] getContentAsByteArray() {
+        drain();
+        if (!Boolean.TRUE.equals(capture) || overflow || released || spillChannel != null) {
+            return null;
+        }
+        byte[] content = new byte[(int) length];
+        for (int i = 0, offset = 0; offset < length; i++) {
+            int count = (int) Math.min(BodyBufferPool.CHUNK_SIZE, length - offset);
+            System.arraycopy(chunks.get(i), 0, content, offset, count);
+            offset += count;
+        }
+        return content;
+    }
+
+    /**
+     * 获取已缓存 body 的前 maxBytes 个字节，只补读所需的部分
+     * <p>
+     * 超过内存阈值时从临时文件读取，超过最大缓存大小时返回超出前已缓存的部分
+     *
+     * @param maxBytes 最大字节数
+     * @return 已缓存 body 的前 maxBytes 个字节，无需记录或已归还返回 null
+     */
+    public byte[] getContentPrefix(int maxBytes) {
+        drain(maxBytes);
+        if (!Boolean.TRUE.equals(capture) || released) {
+            return null;
+        }
+        byte[] content = new byte[(int) Math.min(length, maxBytes)];
+        if (spillChannel != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            try {
+                while (buffer.hasRemaining() && spillChannel.read(buffer, buffer.position()) != -1) {
+                    // 按位置读取，不影响写入位置
+                }
+            } catch (IOException e) {
+                return null;
+            }
+            return content;
+        }
+        for (int i = 0, offset = 0; offset < content.length; i++) {
+            int count = Math.min(BodyBufferPool.CHUNK_SIZE, content.length - offset);
+            System.arraycopy(chunks.get(i), 0, content, offset, count);
+            offset += count;
+        }
+        return content;
+    }
+
+    /**
+     * 获取 body 大小
+     *
+     * @return 已读取完毕且完整缓存时返回实际大小，否则返回请求头中的大小，未知返回 -1
+     */
+    public long getContentSize() {
+        if (teeInputStream != null && teeInputStream.isFinished() && !overflow) {
+            return length;
+        }
+        return getContentLengthLong();
+    }
+
+    /**
+     * 获取已缓存的 body
+     *
+     * @return 已缓存的 body，无需记录、超过内存阈值、超过最大缓存大小或已归还返回 null
+     */
+    public String getBody() {
+        byte[] content = getContentAsByteArray();
+        return content != null ? new String(content, getCharset()) : null;
+    }
+
+    /**
+     * 归还缓冲块并删除临时文件
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        chunks.forEach(pool::release);
+        chunks.clear();
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("删除 body 临时文件 [{}] 失败：{}", spillFile, e.getLocalizedMessage());
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e.getLocalizedMessage(), e);
         }
-        body = stringBuilder.toString().getBytes(Charset.defaultCharset());
     }
 
     @Override
-    public BufferedReader getReader() {
-        return new BufferedReader(new InputStreamReader(getInputStream()));
+    public BufferedReader getReader() throws IOException {
+        return new BufferedReader(new InputStreamReader(getInputStream(), getCharset()));
     }
 
+    /**
+     * 原始流读取完毕且已完整记录时重新读取记录的 body，否则返回边读边存的输入流
+     *
+     * @return 输入流
+     * @throws IOException 读取异常
+     */
     @Override
-    public ServletInputStream getInputStream() {
+    public ServletInputStream getInputStream() throws IOException {
+        TeeInputStream inputStream = getTeeInputStream();
+        if (inputStream.isFinished() && Boolean.TRUE.equals(capture) && !overflow && !released) {
+            return new CachedInputStream();
+        }
+        return inputStream;
+    }
+
+    private TeeInputStream getTeeInputStream() throws IOException {
+        if (teeInputStream == null) {
+            teeInputStream = new TeeInputStream(super.getInputStream());
+        }
+        return teeInputStream;
+    }
 
-        final ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+    /**
+     * 获取请求编码，未指定时使用 UTF-8
+     *
+     * @return 请求编码
+     */
+    public Charset getCharset() {
+        String encoding = getCharacterEncoding();
+        return encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+    }
 
-        return new ServletInputStream() {
-            @Override
-            public int read() {
-                return inputStream.read();
+    /**
+     * 读取已缓存的 body，已转存至临时文件时按位置读取文件通道，否则读取缓冲块
+     */
+    private class CachedInputStream extends ServletInputStream {
+
+        /**
+         * 单字节读取时的缓冲
+         */
+        private final byte[] singleByte = new byte[1];
+
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            if (isFinished()) {
+                return -1;
+            }
+            if (spillChannel != null) {
+                return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xFF;
+            }
+            byte b = chunks.get((int) (position / BodyBufferPool.CHUNK_SIZE))[(int) (position % BodyBufferPool.CHUNK_SIZE)];
+            position++;
+            return b & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (isFinished()) {
+                return -1;
             }
+            if (spillChannel != null) {
+                // 按位置读取，不影响通道位置
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, length - position));
+                int count = spillChannel.read(buffer, position);
+                if (count > 0) {
+                    position += count;
+                }
+                return count;
+            }
+            int count = 0;
+            while (count < len && position < length) {
+                int offset = (int) (position % BodyBufferPool.CHUNK_SIZE);
+                int size = (int) Math.min(Math.min(BodyBufferPool.CHUNK_SIZE - offset, length - position), len - count);
+                System.arraycopy(chunks.get((int) (position / BodyBufferPool.CHUNK_SIZE)), offset, b, off + count, size);
+                position += size;
+                count += size;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return released ? 0 : (int) Math.min(length - position, Integer.MAX_VALUE);
+        }
 
-            @Override
-            public boolean isFinished() {
-                return false;
+        @Override
+        public boolean isFinished() {
+            return released || position >= length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            // 数据已全部在内存或临时文件中，直接通知可读与读取完毕
+            try {
+                if (!isFinished()) {
+                    readListener.onDataAvailable();
+                }
+                if (isFinished()) {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException e) {
+                readListener.onError(e);
             }
+        }
 
-            @Override
-            public boolean isReady() {
-                return false;
+    }
+
+    /**
+     * 读取原始流，同时记录读取到的字节
+     */
+    private class TeeInputStream extends ServletInputStream {
+
+        private final ServletInputStream original;
+
+        /**
+         * 是否已读取至末尾
+         */
+        private boolean finished;
+
+        private TeeInputStream(ServletInputStream original) {
+            this.original = original;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = original.read();
+            if (b == -1) {
+                finished = true;
+            } else {
+                record(b);
             }
+            return b;
+        }
 
-            @Override
-            public void setReadListener(ReadListener readListener) {
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = original.read(b, off, len);
+            if (count == -1) {
+                finished = true;
+            } else if (count > 0) {
+                record(b, off, count);
             }
-        };
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return original.available();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished || original.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return original.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            original.setReadListener(readListener);
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package com.pongsky.cloud.web.handler;
+
+import com.pongsky.cloud.model.annotation.Meaning;
+import org.springframework.validation.BindingResult;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 字段含义缓存
+ * <p>
+ * 每个类首次使用时解析一次字段（含父类字段）的 {@link Meaning} 注解与嵌套类型，通过 {@link ClassValue} 与类绑定；
+ * 校验失败时按字段路径（如 items[0].price）逐级查找，不再反射读取字段与注解
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class FieldMeanings {
+
+    /**
+     * 类 - 字段名称 - 字段信息
+     */
+    private static final ClassValue<Map<String, FieldMeaning>> FIELDS = new ClassValue<>() {
+        @Override
+        protected Map<String, FieldMeaning> computeValue(Class<?> type) {
+            Map<String, FieldMeaning> fields = new HashMap<>();
+            for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    Meaning meaning = field.getAnnotation(Meaning.class);
+                    fields.putIfAbsent(field.getName(), new FieldMeaning(
+                            meaning != null ? meaning.value() : null,
+                            field.getType(),
+                            getElementType(field)));
+                }
+            }
+            return Collections.unmodifiableMap(fields);
+        }
+    };
+
+    /**
+     * 获取字段错误信息
+     *
+     * @param bindingResult bindingResult
+     * @return 字段错误信息
+     */
+    public static String getFieldMessages(BindingResult bindingResult) {
+        Object target = bindingResult.getTarget();
+        StringBuilder stringBuilder = new StringBuilder("[ ");
+        bindingResult.getFieldErrors().forEach(error -> stringBuilder
+                .append(target != null ? getName(target.getClass(), error.getField()) : error.getField())
+                .append(" ")
+                .append(error.getDefaultMessage())
+                .append("; "));
+        return stringBuilder.append("]").toString();
+    }
+
+    /**
+     * 获取字段路径对应的含义，未标注 {@link Meaning} 的字段使用字段名称
+     * <p>
+     * 如 items[0].price 返回 商品[0].价格
+     *
+     * @param type 类
+     * @param path 字段路径
+     * @return 字段路径对应的含义
+     */
+    public static String getName(Class<?> type, String path) {
+        StringBuilder name = new StringBuilder(path.length());
+        Class<?> current = type;
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('.', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            int bracket = path.indexOf('[', start);
+            boolean indexed = bracket >= 0 && bracket < end;
+            String fieldName = path.substring(start, indexed ? bracket : end);
+            FieldMeaning field = current != null ? FIELDS.get(current).get(fieldName) : null;
+            if (start > 0) {
+                name.append('.');
+            }
+            name.append(field != null && field.meaning != null ? field.meaning : fieldName);
+            if (indexed) {
+                name.append(path, bracket, end);
+            }
+            current = field == null ? null : indexed ? field.elementType : field.type;
+            start = end + 1;
+        }
+        return name.toString();
+    }
+
+    /**
+     * 获取集合、数组字段的元素类型
+     *
+     * @param field 字段
+     * @return 元素类型，非集合、数组或无法确定时返回 null
+     */
+    private static Class<?> getElementType(Field field) {
+        if (field.getType().isArray()) {
+            return field.getType().getComponentType();
+        }
+        if (!(field.getGenericType() instanceof ParameterizedType)) {
+            return null;
+        }
+        Type[] arguments = ((ParameterizedType) field.getGenericType()).getActualTypeArguments();
+        Type elementType;
+        if (Collection.class.isAssignableFrom(field.getType()) && arguments.length == 1) {
+            elementType = arguments[0];
+        } else if (Map.class.isAssignableFrom(field.getType()) && arguments.length == 2) {
+            elementType = arguments[1];
+        } else {
+            return null;
+        }
+        if (elementType instanceof ParameterizedType) {
+            elementType = ((ParameterizedType) elementType).getRawType();
+        }
+        return elementType instanceof Class ? (Class<?>) elementType : null;
+    }
+
+    /**
+     * 字段信息
+     */
+    private static class FieldMeaning {
+
+        /**
+         * 字段含义
+         */
+        private final String meaning;
+
+        /**
+         * 字段类型
+         */
+        private final Class<?> type;
+
+        /**
+         * 集合、数组元素类型
+         */
+        private final Class<?> elementType;
+
+        private FieldMeaning(String meaning, Class<?> type, Class<?> elementType) {
+            this.meaning = meaning;
+            this.type = type;
+            this.elementType = elementType;
+        }
+
+    }
+
+}
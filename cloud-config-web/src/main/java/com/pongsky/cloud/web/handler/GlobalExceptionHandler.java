@@ -10,13 +10,13 @@ import com.pongsky.cloud.exception.InsertException;
 import com.pongsky.cloud.exception.RemoteCallException;
 import com.pongsky.cloud.exception.UpdateException;
 import com.pongsky.cloud.exception.ValidationException;
-import com.pongsky.cloud.model.annotation.Meaning;
 import com.pongsky.cloud.response.GlobalResult;
 import com.pongsky.cloud.response.enums.ResultCode;
 import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
+import com.pongsky.cloud.web.log.ExceptionLogLimiter;
+import com.pongsky.cloud.web.log.PayloadLogPolicy;
 import com.pongsky.cloud.web.request.AuthUtils;
 import com.pongsky.cloud.web.request.IpUtils;
-import com.pongsky.cloud.web.request.RequestUtils;
 import feign.RetryableException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +27,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.BindException;
-import org.springframework.validation.BindingResult;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
@@ -43,9 +42,6 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.ConstraintViolationException;
-import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.Optional;
 
 /**
  * 全局异常处理
@@ -60,6 +56,10 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     private final ObjectMapper jsonMapper;
 
+    private final ExceptionLogLimiter exceptionLogLimiter;
+
+    private final PayloadLogPolicy payloadLogPolicy;
+
     /**
      * 打印堆栈信息最小标识码
      */
@@ -79,7 +79,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                                                          HttpStatus status, WebRequest request) {
         HttpServletRequest httpServletRequest = ((ServletRequestAttributes)
                 (RequestContextHolder.currentRequestAttributes())).getRequest();
-        Object result = getResult(ResultCode.BindException, getFieldMessages(ex.getBindingResult()),
+        Object result = getResult(ResultCode.BindException, FieldMeanings.getFieldMessages(ex.getBindingResult()),
                 ex, httpServletRequest);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
@@ -119,84 +119,10 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         HttpServletRequest httpServletRequest = ((ServletRequestAttributes)
                 (RequestContextHolder.currentRequestAttributes())).getRequest();
         Object result = getResult(ResultCode.MethodArgumentNotValidException,
-                getFieldMessages(ex.getBindingResult()), ex, httpServletRequest);
+                FieldMeanings.getFieldMessages(ex.getBindingResult()), ex, httpServletRequest);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
-    /**
-     * 获取字段错误信息
-     *
-     * @param bindingResult bindingResult
-     * @return 字段错误信息
-     */
-    private String getFieldMessages(BindingResult bindingResult) {
-        String escapeInterval = "\\.";
-        String interval = ".";
-        String listStart = "java.util.List<";
-        StringBuilder stringBuilder = new StringBuilder("[ ");
-        if (bindingResult.getTarget() == null) {
-            bindingResult.getFieldErrors().forEach(error -> appendErrorMessage(stringBuilder,
-                    error.getField(), error.getDefaultMessage()));
-        } else {
-            bindingResult.getFieldErrors().forEach(error -> {
-                String filedName = error.getField();
-                Field field = Arrays.stream(bindingResult.getTarget().getClass().getDeclaredFields())
-                        .filter(f -> f.getName().equals(error.getField()))
-                        .findFirst()
-                        .orElse(null);
-                if (field == null) {
-                    appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
-                    return;
-                }
-                Meaning meaning = field.getAnnotation(Meaning.class);
-                if (meaning != null) {
-                    filedName = meaning.value();
-                }
-                if (!(filedName.split(escapeInterval).length > 1 && meaning != null)) {
-                    appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
-                    return;
-                }
-                int i = filedName.lastIndexOf(interval, (filedName.lastIndexOf(interval) - 1)) + 1;
-                String[] split = filedName.substring(i).split(escapeInterval);
-                filedName = split[0].substring(0, filedName.lastIndexOf("["));
-                String typeName = field.getGenericType().getTypeName();
-                if (!(typeName.startsWith(listStart))) {
-                    appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
-                    return;
-                }
-                typeName = typeName.substring(listStart.length(), typeName.lastIndexOf(">"));
-                try {
-                    Optional<Meaning> optionalMeaning = Arrays.stream(Class.forName(typeName).getDeclaredFields())
-                            .filter(f -> f.getName().equals(split[1]))
-                            .map(f -> f.getAnnotation(Meaning.class))
-                            .findFirst();
-                    if (optionalMeaning.isPresent()) {
-                        filedName += optionalMeaning.get().value();
-                    }
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                }
-                appendErrorMessage(stringBuilder, filedName, error.getDefaultMessage());
-            });
-        }
-        return stringBuilder.append("]").toString();
-    }
-
-    /**
-     * 追加错误字段信息
-     *
-     * @param stringBuilder 全部错误信息
-     * @param filedName     字段名称
-     * @param message       字段错误信息
-     */
-    private void appendErrorMessage(StringBuilder stringBuilder, String filedName, String message) {
-        stringBuilder
-                .append(filedName)
-                .append(" ")
-                .append(message)
-                .append("; ");
-    }
-
     /**
      * JSON 数据错误异常
      *
@@ -353,7 +279,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     @ExceptionHandler(value = FrequencyException.class)
     public Object frequencyException(FrequencyException exception, HttpServletRequest request) {
-        return getResult(ResultCode.FrequencyException, null, exception, request);
+        return getResult(ResultCode.FrequencyException, exception.getLocalizedMessage(), exception, request);
     }
 
     /**
@@ -426,7 +352,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     private Object getResult(ResultCode resultCode, String message, Exception exception, HttpServletRequest request) {
         String ip = IpUtils.getIp(request);
-        // 可通过 getAttribute 获取自定义注解对 body 数据对特定业务场景进行特殊处理
+        // 可通过 RouteMetadata.get(request).hasAnnotation 获取自定义注解对 body 数据对特定业务场景进行特殊处理
 
         GlobalResult<Void> result = new GlobalResult<>(ip, resultCode, request.getRequestURI(), exception.getClass().getName());
         exception = getException(exception, 0);
@@ -467,6 +393,8 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     /**
      * 打印日志详细信息
+     * <p>
+     * 标识码不小于 {@link #BOUNDARY} 的异常按指纹限流，同一指纹每个窗口只打印一次完整堆栈，其余只计数
      *
      * @param exception 异常
      * @param request   request
@@ -474,25 +402,47 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
      */
     private void log(Exception exception, HttpServletRequest request, GlobalResult<Void> result) {
         if (result.getCode() >= BOUNDARY) {
-            log.error("");
-            log.error("Exception Started");
-            log.error("请求路径：{}", request.getRequestURI());
-            log.error("方法类型：{}", request.getMethod());
-            log.error("param 参数：{}", request.getQueryString());
-            log.error("body 参数：{}", RequestUtils.getBody(request));
-            log.error("异常详细信息：{}", result.getMessage());
-            Arrays.asList(exception.getStackTrace()).forEach(stackTrace -> log.error(stackTrace.toString()));
-        } else {
-            log.info("");
-            log.info("Exception Started");
-            log.info("异常详细信息：{}", result.getMessage());
+            ExceptionLogLimiter.Fingerprint fingerprint = exceptionLogLimiter.record(exception);
+            long suppressed = fingerprint.tryLog();
+            if (suppressed < 0) {
+                return;
+            }
+            log.error("Exception Started [{}]，上个窗口内重复 {} 次" + System.lineSeparator()
+                            + "请求路径：{}" + System.lineSeparator()
+                            + "方法类型：{}" + System.lineSeparator()
+                            + "param 参数：{}" + System.lineSeparator()
+                            + "body 参数：{}" + System.lineSeparator()
+                            + "异常详细信息：{}" + System.lineSeparator()
+                            + "返回结果：{}",
+                    fingerprint.getId(), suppressed,
+                    request.getRequestURI(),
+                    request.getMethod(),
+                    request.getQueryString(),
+                    payloadLogPolicy.getBody(request),
+                    result.getMessage(),
+                    toJson(result),
+                    exception);
+            return;
         }
+        log.info("");
+        log.info("Exception Started");
+        log.info("异常详细信息：{}", result.getMessage());
+        log.info("返回结果：{}", toJson(result));
+        log.info("Exception Ended");
+    }
+
+    /**
+     * 序列化错误响应数据
+     *
+     * @param result 错误响应数据
+     * @return 错误响应数据 JSON
+     */
+    private String toJson(GlobalResult<Void> result) {
         try {
-            log.error("返回结果：{}", jsonMapper.writeValueAsString(result));
+            return jsonMapper.writeValueAsString(result);
         } catch (JsonProcessingException e) {
-            log.error(e.getLocalizedMessage());
+            return e.getLocalizedMessage();
         }
-        log.error("Exception Ended");
     }
 
 }
@@ -1,39 +1,73 @@
 package com.pongsky.cloud.web.handler;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.pongsky.cloud.response.GlobalResult;
-import com.pongsky.cloud.response.annotation.ResponseResult;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import com.pongsky.cloud.web.route.RouteMetadataRegistry;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.bind.annotation.ControllerAdvice;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
-import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
 
 /**
  * 接口响应体处理器
+ * <p>
+ * 是否封装为全局响应数据按接口方法只判断一次；封装时直接向响应流依次写入预先序列化的
+ * {"code":..,"message":..,"data": 前缀、Jackson 序列化的响应数据、} 后缀，
+ * 不再创建 GlobalResult，String 响应数据也不再序列化两次
  *
  * @author pengsenhao
  * @create 2021-02-11
  */
-@Slf4j
 @ControllerAdvice
-@RequiredArgsConstructor
 public class ResponseResultHandler implements ResponseBodyAdvice<Object> {
 
-    private final ObjectMapper jsonMapper;
+    /**
+     * 后缀
+     */
+    private static final byte[] SUFFIX = {'}'};
+
+    /**
+     * 响应数据写入器（不关闭响应流）
+     */
+    private final ObjectWriter dataWriter;
+
+    /**
+     * 成功响应数据前缀，包含 data 字段名称
+     */
+    private final byte[] dataPrefix;
+
+    /**
+     * 没有响应数据时的成功响应数据
+     */
+    private final byte[] emptyResult;
+
+    public ResponseResultHandler(ObjectMapper jsonMapper) throws JsonProcessingException {
+        this.dataWriter = jsonMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.emptyResult = jsonMapper.writeValueAsBytes(new GlobalResult<>(null));
+        // data 为最后一个非空字段，以单字节的 0 占位后截去 0}
+        byte[] result = jsonMapper.writeValueAsBytes(new GlobalResult<>(0));
+        if (result.length < 2 || result[result.length - 2] != '0' || result[result.length - 1] != '}') {
+            throw new IllegalStateException("无法生成全局响应数据前缀：" + new String(result));
+        }
+        this.dataPrefix = Arrays.copyOf(result, result.length - 2);
+    }
 
     @Override
     public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
-        return true;
+        Method method = returnType.getMethod();
+        return method != null && RouteMetadataRegistry.get(method, returnType.getContainingClass()).isWrapped();
     }
 
     @Override
@@ -43,26 +77,26 @@ public class ResponseResultHandler implements ResponseBodyAdvice<Object> {
                                   Class<? extends HttpMessageConverter<?>> selectedConverterType,
                                   ServerHttpRequest request,
                                   ServerHttpResponse response) {
-        HttpServletRequest httpServletRequest =
-                ((ServletRequestAttributes) (RequestContextHolder.currentRequestAttributes())).getRequest();
         // 判断是否已封装好全局响应结果
         if (body instanceof GlobalResult) {
             return body;
         }
-        // 判断是否全局响应数据
-        if (httpServletRequest.getAttribute(ResponseResult.class.getSimpleName()) != null) {
-            if (body instanceof String) {
-                try {
-                    return jsonMapper.writeValueAsString(new GlobalResult<>(body));
-                } catch (JsonProcessingException e) {
-                    log.error(e.getLocalizedMessage());
-                    return new GlobalResult<>(body);
-                }
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            OutputStream outputStream = response.getBody();
+            if (body == null) {
+                outputStream.write(emptyResult);
             } else {
-                return new GlobalResult<>(body);
+                outputStream.write(dataPrefix);
+                dataWriter.writeValue(outputStream, body);
+                outputStream.write(SUFFIX);
             }
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new HttpMessageNotWritableException("写入响应数据失败：" + e.getLocalizedMessage(), e);
         }
-        return body;
+        // 已直接写入响应流，无需再经过 HttpMessageConverter
+        return null;
     }
 
-}
\ No newline at end of file
+}
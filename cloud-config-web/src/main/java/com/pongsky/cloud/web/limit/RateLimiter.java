@@ -0,0 +1,176 @@
+package com.pongsky.cloud.web.limit;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个限流规则的令牌桶
+ * <p>
+ * 每个 key 一个以 GCRA 形式表示的令牌桶，只保存理论到达时间（TAT），以单个 long CAS 更新，不加锁；
+ * 令牌桶数量达到上限时淘汰已回满的空闲令牌桶，淘汰每个周期最多执行一次，
+ * 淘汰后仍无空位的新 key 由所有规则共用的 {@link TokenBucketSketch} 估算，内存占用固定
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class RateLimiter {
+
+    /**
+     * 最短淘汰间隔
+     */
+    private static final long MIN_EVICTION_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 每个令牌的生成间隔（纳秒）
+     */
+    private final long emissionInterval;
+
+    /**
+     * 周期（纳秒）
+     */
+    private final long period;
+
+    /**
+     * 规则哈希种子，区分不同规则在 sketch 中的单元
+     */
+    private final long seed;
+
+    /**
+     * 最大令牌桶数量
+     */
+    private final int maxBuckets;
+
+    /**
+     * 淘汰间隔（纳秒）
+     */
+    private final long evictionInterval;
+
+    private final TokenBucketSketch sketch;
+
+    /**
+     * 被拒绝的请求次数
+     */
+    private final Counter rejected;
+
+    /**
+     * key - 令牌桶（TAT）
+     */
+    private final ConcurrentMap<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 下次允许淘汰的时间
+     */
+    private final AtomicLong nextEviction = new AtomicLong();
+
+    /**
+     * @param permits    周期内允许的请求次数
+     * @param period     周期（纳秒）
+     * @param seed       规则哈希种子
+     * @param maxBuckets 最大令牌桶数量
+     * @param sketch     令牌桶 sketch
+     * @param rejected   被拒绝的请求次数
+     */
+    public RateLimiter(long permits, long period, long seed, int maxBuckets,
+                       TokenBucketSketch sketch, Counter rejected) {
+        if (permits < 1 || period < permits) {
+            throw new IllegalArgumentException("限流规则错误：permits 必须大于 0，period 不能小于 permits 纳秒");
+        }
+        this.emissionInterval = period / permits;
+        this.period = emissionInterval * permits;
+        this.seed = seed;
+        this.maxBuckets = maxBuckets;
+        this.evictionInterval = Math.max(this.period, MIN_EVICTION_INTERVAL);
+        this.sketch = sketch;
+        this.rejected = rejected;
+    }
+
+    /**
+     * 尝试获取一个令牌，获取失败时计入被拒绝次数
+     *
+     * @param key 限流维度的值
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(Object key) {
+        long now = sketch.now();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                evictIdle(now);
+            }
+            if (buckets.size() >= maxBuckets) {
+                return record(sketch.tryAcquire(hash(key), emissionInterval, period, now));
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + emissionInterval;
+            if (newTat - now > period) {
+                return record(false);
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 当前令牌桶数量
+     *
+     * @return 当前令牌桶数量
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private boolean record(boolean acquired) {
+        if (!acquired) {
+            rejected.increment();
+        }
+        return acquired;
+    }
+
+    /**
+     * 淘汰已回满的令牌桶（TAT 不晚于当前时间），已回满的令牌桶与新建的令牌桶等价
+     * <p>
+     * 每个淘汰间隔内只有一个线程执行，其余线程直接返回
+     *
+     * @param now 当前时间
+     */
+    private void evictIdle(long now) {
+        long next = nextEviction.get();
+        if (now < next || !nextEviction.compareAndSet(next, now + evictionInterval)) {
+            return;
+        }
+        Iterator<Map.Entry<Object, AtomicLong>> iterator = buckets.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, AtomicLong> entry = iterator.next();
+            if (entry.getValue().get() <= now) {
+                buckets.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 计算 key 在 sketch 中的 64 位哈希值（MurmurHash3 fmix64）
+     *
+     * @param key 限流维度的值
+     * @return 64 位哈希值
+     */
+    private long hash(Object key) {
+        long h = seed ^ key.hashCode();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.pongsky.cloud.web.limit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定内存的令牌桶 sketch（count-min）
+ * <p>
+ * depth 行、每行 width 个单元，每个单元为一个以 GCRA 形式表示的令牌桶：只保存理论到达时间（TAT），
+ * 以单个 long CAS 更新，不加锁。同一个 key 在每行各映射一个单元，取最小的 TAT 作为估计值，
+ * 更新时只将各单元抬高至新的 TAT（conservative update）。TAT 早于当前时间的单元等同于空令牌桶，无需清理，内存占用与 key 数量无关
+ * <p>
+ * 哈希冲突只会使估计值偏大（限流更严格）。读取估计值、判断与抬高各单元不是一个原子操作，
+ * 同一个 key 的并发请求可能读到同一个估计值而同时放行，超出限制的数量不超过并发请求数；
+ * 这里只作为令牌桶数量达到上限后的近似兜底，精确限流由 {@link RateLimiter} 的单个令牌桶 CAS 保证
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class TokenBucketSketch {
+
+    /**
+     * 时间原点，单元中的时间均为相对原点的纳秒数
+     */
+    private final long origin = System.nanoTime();
+
+    private final int depth;
+
+    private final int width;
+
+    private final int mask;
+
+    private final AtomicLongArray cells;
+
+    /**
+     * @param depth 行数
+     * @param width 每行单元数量，向上取整为 2 的幂
+     */
+    public TokenBucketSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("sketch 行数、每行单元数量必须大于 0");
+        }
+        this.depth = depth;
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.mask = this.width - 1;
+        this.cells = new AtomicLongArray(depth * this.width);
+    }
+
+    /**
+     * 当前时间
+     *
+     * @return 相对时间原点的纳秒数
+     */
+    long now() {
+        return System.nanoTime() - origin;
+    }
+
+    /**
+     * 尝试获取一个令牌，并发时可能多放行，见类注释
+     *
+     * @param hash             key 的 64 位哈希值
+     * @param emissionInterval 每个令牌的生成间隔（纳秒）
+     * @param period           周期（纳秒），即令牌桶容量 * 生成间隔
+     * @param now              当前时间
+     * @return 是否获取成功
+     */
+    boolean tryAcquire(long hash, long emissionInterval, long period, long now) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long tat = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            tat = Math.min(tat, cells.get(index(row, h1, h2)));
+        }
+        long newTat = Math.max(tat, now) + emissionInterval;
+        if (newTat - now > period) {
+            return false;
+        }
+        for (int row = 0; row < depth; row++) {
+            int index = index(row, h1, h2);
+            long current = cells.get(index);
+            while (current < newTat && !cells.compareAndSet(index, current, newTat)) {
+                current = cells.get(index);
+            }
+        }
+        return true;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * width + ((h1 + row * h2) & mask);
+    }
+
+}
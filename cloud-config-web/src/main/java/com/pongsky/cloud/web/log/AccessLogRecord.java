@@ -0,0 +1,84 @@
+package com.pongsky.cloud.web.log;
+
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 访问日志
+ * <p>
+ * 每个请求一条，由 {@link AccessLogWriter} 在后台线程序列化为一行 JSON
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Data
+@Accessors(chain = true)
+public class AccessLogRecord {
+
+    /**
+     * 请求时间戳
+     */
+    private Long timestamp;
+
+    /**
+     * IP
+     */
+    private String ip;
+
+    /**
+     * userAgent
+     */
+    private String userAgent;
+
+    /**
+     * referer
+     */
+    private String referer;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 角色
+     */
+    private AuthRole role;
+
+    /**
+     * 请求路径
+     */
+    private String uri;
+
+    /**
+     * 请求方法
+     */
+    private String method;
+
+    /**
+     * param 参数
+     */
+    private String params;
+
+    /**
+     * body 参数
+     */
+    private String body;
+
+    /**
+     * 响应数据快照（在请求线程中序列化，超过最大长度时截断），见 {@link PayloadLogPolicy#toLoggable}
+     */
+    private Object response;
+
+    /**
+     * 异常信息
+     */
+    private String error;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private Long cost;
+
+}
@@ -0,0 +1,138 @@
+package com.pongsky.cloud.web.log;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志异步输出
+ * <p>
+ * 请求线程只负责将访问日志写入环形队列，后台线程批量序列化并输出，队列已满时丢弃并计数
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Slf4j
+@Component
+public class AccessLogWriter implements DisposableBean {
+
+    /**
+     * 队列为空时的等待时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ObjectMapper jsonMapper;
+
+    /**
+     * 访问日志队列
+     */
+    private final RingBuffer<AccessLogRecord> buffer;
+
+    /**
+     * 每批输出数量
+     */
+    private final int batchSize;
+
+    /**
+     * 丢弃数量
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer = new Thread(this::run, "access-log-writer");
+
+    private volatile boolean running = true;
+
+    public AccessLogWriter(ObjectMapper jsonMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${application.access-log.buffer-size:8192}") int bufferSize,
+                           @Value("${application.access-log.batch-size:256}") int batchSize) {
+        this.jsonMapper = jsonMapper;
+        this.buffer = new RingBuffer<>(bufferSize);
+        this.batchSize = Math.max(batchSize, 1);
+        FunctionCounter.builder("access.log.dropped", dropped, LongAdder::sum)
+                .description("访问日志队列已满时丢弃的数量")
+                .register(meterRegistry);
+        Gauge.builder("access.log.pending", buffer, RingBuffer::size)
+                .description("访问日志队列中等待输出的数量")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 发布访问日志（不阻塞）
+     *
+     * @param record 访问日志
+     */
+    public void publish(AccessLogRecord record) {
+        if (!buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 获取丢弃数量
+     *
+     * @return 丢弃数量
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 批量输出访问日志，关闭时输出剩余日志后退出
+     */
+    private void run() {
+        StringBuilder lines = new StringBuilder();
+        while (running || buffer.size() > 0) {
+            int count = buffer.drain(record -> append(lines, record), batchSize);
+            if (count == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            log.info("{}", lines);
+            lines.setLength(0);
+        }
+    }
+
+    /**
+     * 将访问日志序列化为一行 JSON
+     *
+     * @param lines  输出内容
+     * @param record 访问日志
+     */
+    private void append(StringBuilder lines, AccessLogRecord record) {
+        if (lines.length() > 0) {
+            lines.append(System.lineSeparator());
+        }
+        try {
+            lines.append(jsonMapper.writeValueAsString(record));
+        } catch (JsonProcessingException e) {
+            lines.append("访问日志序列化失败：").append(record.getMethod()).append(' ').append(record.getUri())
+                    .append(' ').append(e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+}
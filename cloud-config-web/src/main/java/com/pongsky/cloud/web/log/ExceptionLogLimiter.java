@@ -0,0 +1,168 @@
+package com.pongsky.cloud.web.log;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异常日志限流
+ * <p>
+ * 以异常类型与栈顶若干帧计算指纹，同一指纹在每个窗口内只打印一次完整堆栈，其余只计数，
+ * 下次打印时输出上个窗口内被忽略的次数；每个指纹的发生次数通过 exception.fingerprint 指标查看
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Component
+public class ExceptionLogLimiter {
+
+    /**
+     * 指标名称
+     */
+    private static final String COUNTER_NAME = "exception.fingerprint";
+
+    /**
+     * 超过最大指纹数量后共用的指纹
+     */
+    private static final String OVERFLOW_FINGERPRINT = "other";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 窗口大小（毫秒）
+     */
+    private final long window;
+
+    /**
+     * 参与计算指纹的栈帧数量
+     */
+    private final int stackDepth;
+
+    /**
+     * 最大指纹数量
+     */
+    private final int maxFingerprints;
+
+    /**
+     * 指纹 - 状态
+     */
+    private final ConcurrentMap<Long, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * 超过最大指纹数量后共用的状态
+     */
+    private final Fingerprint overflow;
+
+    public ExceptionLogLimiter(MeterRegistry meterRegistry,
+                               @Value("${application.exception-log.window:1m}") Duration window,
+                               @Value("${application.exception-log.stack-depth:5}") int stackDepth,
+                               @Value("${application.exception-log.max-fingerprints:1000}") int maxFingerprints) {
+        this.meterRegistry = meterRegistry;
+        this.window = window.toMillis();
+        this.stackDepth = Math.max(stackDepth, 1);
+        this.maxFingerprints = maxFingerprints;
+        this.overflow = new Fingerprint(OVERFLOW_FINGERPRINT, OVERFLOW_FINGERPRINT);
+    }
+
+    /**
+     * 记录异常
+     *
+     * @param throwable 异常
+     * @return 异常指纹
+     */
+    public Fingerprint record(Throwable throwable) {
+        long hash = hash(throwable);
+        Fingerprint fingerprint = fingerprints.get(hash);
+        if (fingerprint == null) {
+            fingerprint = fingerprints.size() < maxFingerprints
+                    ? fingerprints.computeIfAbsent(hash, key ->
+                    new Fingerprint(String.format("%016x", key), throwable.getClass().getSimpleName()))
+                    : overflow;
+        }
+        fingerprint.counter.increment();
+        return fingerprint;
+    }
+
+    /**
+     * 计算异常指纹：异常类型 + 栈顶若干帧
+     *
+     * @param throwable 异常
+     * @return 异常指纹
+     */
+    private long hash(Throwable throwable) {
+        long hash = throwable.getClass().getName().hashCode();
+        StackTraceElement[] stackTrace = throwable.getStackTrace();
+        for (int i = 0; i < Math.min(stackDepth, stackTrace.length); i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + stackTrace[i].hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * 异常指纹
+     */
+    public class Fingerprint {
+
+        /**
+         * 指纹ID
+         */
+        private final String id;
+
+        /**
+         * 发生次数
+         */
+        private final Counter counter;
+
+        /**
+         * 当前窗口开始时间，Long.MIN_VALUE 表示尚未打印
+         */
+        private final AtomicLong windowStart = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * 当前窗口内未打印的次数
+         */
+        private final LongAdder suppressed = new LongAdder();
+
+        private Fingerprint(String id, String type) {
+            this.id = id;
+            this.counter = Counter.builder(COUNTER_NAME)
+                    .description("异常发生次数")
+                    .tag("type", type)
+                    .tag("fingerprint", id)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 获取指纹ID
+         *
+         * @return 指纹ID
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * 当前窗口内是否打印完整堆栈，每个窗口只有第一次返回 true
+         *
+         * @return 打印完整堆栈时返回上个窗口内未打印的次数，否则返回 -1
+         */
+        public long tryLog() {
+            long now = System.currentTimeMillis();
+            long start = windowStart.get();
+            if ((start == Long.MIN_VALUE || now - start >= window) && windowStart.compareAndSet(start, now)) {
+                return suppressed.sumThenReset();
+            }
+            suppressed.increment();
+            return -1;
+        }
+
+    }
+
+}
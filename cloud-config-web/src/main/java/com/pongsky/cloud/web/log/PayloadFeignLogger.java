@@ -0,0 +1,141 @@
+package com.pongsky.cloud.web.log;
+
+import feign.Logger;
+import feign.Request;
+import feign.Response;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Feign 请求、响应日志
+ * <p>
+ * 请求日志延迟到响应返回后再决定是否打印，从 {@link Response#request()} 取得请求，不在线程中暂存；
+ * 是否打印由 {@link PayloadLogPolicy} 决定，请求失败与慢请求始终打印，未收到响应的请求只打印异常；
+ * 响应 body 只预读最大长度 + 1 个字节，剩余部分原样拼接，不会完整读取后再缓存
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class PayloadFeignLogger extends Logger {
+
+    private final org.slf4j.Logger logger;
+
+    private final PayloadLogPolicy payloadLogPolicy;
+
+    public PayloadFeignLogger(Class<?> type, PayloadLogPolicy payloadLogPolicy) {
+        this.logger = LoggerFactory.getLogger(type);
+        this.payloadLogPolicy = payloadLogPolicy;
+    }
+
+    @Override
+    protected void logRequest(String configKey, Level logLevel, Request request) {
+        // 响应返回后再决定是否打印
+    }
+
+    @Override
+    protected Response logAndRebufferResponse(String configKey, Level logLevel,
+                                              Response response, long elapsedTime) throws IOException {
+        Request request = response.request();
+        if (!logger.isDebugEnabled() || request == null
+                || !payloadLogPolicy.shouldLog(configKey, getPath(request), elapsedTime, response.status() >= 400)) {
+            return response;
+        }
+        writeRequest(configKey, logLevel, request);
+        String reason = response.reason() != null ? " " + response.reason() : "";
+        log(configKey, "<--- HTTP/1.1 %s%s (%sms)", response.status(), reason, elapsedTime);
+        if (logLevel.ordinal() < Level.HEADERS.ordinal()) {
+            return response;
+        }
+        writeHeaders(configKey, response.headers());
+        if (logLevel.ordinal() < Level.FULL.ordinal() || response.body() == null) {
+            log(configKey, "<--- END HTTP");
+            return response;
+        }
+        InputStream body = response.body().asInputStream();
+        byte[] prefix = payloadLogPolicy.readPrefix(body);
+        Integer length = response.body().length();
+        log(configKey, "");
+        log(configKey, "%s", payloadLogPolicy.truncate(prefix, length != null ? length : -1, getCharset(response)));
+        log(configKey, "<--- END HTTP (%s-byte body)", length != null ? length : prefix.length);
+        return response.toBuilder()
+                .body(new SequenceInputStream(new ByteArrayInputStream(prefix), body), length)
+                .build();
+    }
+
+    @Override
+    protected void log(String configKey, String format, Object... args) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format(methodTag(configKey) + format, args));
+        }
+    }
+
+    /**
+     * 打印请求，body 超过最大长度时截断
+     *
+     * @param configKey configKey
+     * @param logLevel  日志级别
+     * @param request   请求
+     */
+    private void writeRequest(String configKey, Level logLevel, Request request) {
+        log(configKey, "---> %s %s HTTP/1.1", request.httpMethod().name(), request.url());
+        if (logLevel.ordinal() < Level.HEADERS.ordinal()) {
+            return;
+        }
+        writeHeaders(configKey, request.headers());
+        byte[] body = request.body();
+        if (logLevel.ordinal() >= Level.FULL.ordinal() && body != null) {
+            Charset charset = request.charset() != null ? request.charset() : StandardCharsets.UTF_8;
+            log(configKey, "");
+            log(configKey, "%s", payloadLogPolicy.truncate(body, body.length, charset));
+        }
+        log(configKey, "---> END HTTP (%s-byte body)", body != null ? body.length : 0);
+    }
+
+    /**
+     * 打印请求头
+     *
+     * @param configKey configKey
+     * @param headers   请求头
+     */
+    private void writeHeaders(String configKey, Map<String, Collection<String>> headers) {
+        headers.forEach((name, values) -> values.forEach(value -> log(configKey, "%s: %s", name, value)));
+    }
+
+    /**
+     * 获取请求路径
+     *
+     * @param request 请求
+     * @return 请求路径
+     */
+    private static String getPath(Request request) {
+        try {
+            return URI.create(request.url()).getPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取响应编码，未指定时使用 UTF-8
+     *
+     * @param response 响应
+     * @return 响应编码
+     */
+    private static Charset getCharset(Response response) {
+        try {
+            return response.charset();
+        } catch (RuntimeException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.pongsky.cloud.web.log;
+
+import feign.Logger;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.openfeign.FeignLoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feign 日志工厂，替换默认的 Slf4jLogger
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadFeignLoggerFactory implements FeignLoggerFactory {
+
+    private final PayloadLogPolicy payloadLogPolicy;
+
+    @Override
+    public Logger create(Class<?> type) {
+        return new PayloadFeignLogger(type, payloadLogPolicy);
+    }
+
+}
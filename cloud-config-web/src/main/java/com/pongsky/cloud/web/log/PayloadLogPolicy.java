@@ -0,0 +1,247 @@
+package com.pongsky.cloud.web.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.pongsky.cloud.web.filter.RequestWrapper;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 请求、响应数据日志策略
+ * <p>
+ * 按接口采样，异常请求与慢请求始终打印；请求、响应数据超过最大长度时截断并追加截断标记，
+ * 截断时只读取、序列化上限以内的部分
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Component
+public class PayloadLogPolicy {
+
+    /**
+     * 路径与采样率的分隔符
+     */
+    private static final String SEPARATOR = ":";
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * 默认采样率
+     */
+    private final double sampleRate;
+
+    /**
+     * 路径 - 采样率，按配置顺序匹配
+     */
+    private final Map<String, Double> routeSampleRates = new LinkedHashMap<>();
+
+    /**
+     * 慢请求阈值（毫秒）
+     */
+    private final long slowThreshold;
+
+    /**
+     * 请求、响应数据最大长度（字节）
+     */
+    private final int maxPayloadSize;
+
+    /**
+     * 接口 - 采样率
+     */
+    private final ConcurrentMap<String, Double> sampleRateCache = new ConcurrentHashMap<>();
+
+    public PayloadLogPolicy(@Value("${application.payload-log.sample-rate:1.0}") double sampleRate,
+                            @Value("${application.payload-log.route-sample-rates:}") String[] routeSampleRates,
+                            @Value("${application.payload-log.slow-threshold:1s}") Duration slowThreshold,
+                            @Value("${application.payload-log.max-payload-size:4KB}") DataSize maxPayloadSize) {
+        this.sampleRate = sampleRate;
+        for (String routeSampleRate : routeSampleRates) {
+            if (StringUtils.isBlank(routeSampleRate)) {
+                continue;
+            }
+            int index = routeSampleRate.lastIndexOf(SEPARATOR);
+            if (index <= 0 || index == routeSampleRate.length() - 1) {
+                throw new IllegalArgumentException("application.payload-log.route-sample-rates 格式错误，应为 path:rate");
+            }
+            this.routeSampleRates.put(routeSampleRate.substring(0, index).trim(),
+                    Double.parseDouble(routeSampleRate.substring(index + 1).trim()));
+        }
+        this.slowThreshold = slowThreshold.toMillis();
+        this.maxPayloadSize = (int) Math.min(maxPayloadSize.toBytes(), Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * 是否打印日志
+     *
+     * @param route 接口标识（如匹配到的路径模板），用于缓存采样率，为空时不缓存
+     * @param path  请求路径，为空时使用默认采样率
+     * @param cost  耗时（毫秒）
+     * @param error 是否异常
+     * @return 是否打印日志
+     */
+    public boolean shouldLog(String route, String path, long cost, boolean error) {
+        if (error || cost >= slowThreshold) {
+            return true;
+        }
+        double rate = getSampleRate(route, path);
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * 获取采样率
+     *
+     * @param route 接口标识，用于缓存采样率，为空时不缓存
+     * @param path  请求路径，为空时使用默认采样率
+     * @return 采样率
+     */
+    public double getSampleRate(String route, String path) {
+        if (path == null || routeSampleRates.isEmpty()) {
+            return sampleRate;
+        }
+        if (route == null) {
+            return matchSampleRate(path);
+        }
+        return sampleRateCache.computeIfAbsent(route, key -> matchSampleRate(path));
+    }
+
+    /**
+     * 匹配路径的采样率
+     *
+     * @param path 请求路径
+     * @return 采样率
+     */
+    private double matchSampleRate(String path) {
+        for (Map.Entry<String, Double> entry : routeSampleRates.entrySet()) {
+            if (PATH_MATCHER.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return sampleRate;
+    }
+
+    /**
+     * 获取请求、响应数据最大长度
+     *
+     * @return 请求、响应数据最大长度（字节）
+     */
+    public int getMaxPayloadSize() {
+        return maxPayloadSize;
+    }
+
+    /**
+     * 获取 body 数据，超过最大长度时截断
+     *
+     * @param request request
+     * @return body 数据，未记录时返回 null
+     */
+    public String getBody(HttpServletRequest request) {
+        RequestWrapper requestWrapper = WebUtils.getNativeRequest(request, RequestWrapper.class);
+        if (requestWrapper == null) {
+            return null;
+        }
+        byte[] content = requestWrapper.getContentPrefix(maxPayloadSize + 1);
+        if (content == null || content.length == 0) {
+            return null;
+        }
+        return truncate(content, requestWrapper.getContentSize(), requestWrapper.getCharset());
+    }
+
+    /**
+     * 读取输入流中的数据，超过最大长度时截断
+     * <p>
+     * 只读取最大长度 + 1 个字节，调用方需自行保留已读取的部分以便后续读取
+     *
+     * @param inputStream 输入流
+     * @return 读取到的字节，最多为最大长度 + 1
+     * @throws IOException 读取异常
+     */
+    public byte[] readPrefix(InputStream inputStream) throws IOException {
+        return inputStream.readNBytes(maxPayloadSize + 1);
+    }
+
+    /**
+     * 将数据转为字符串，超过最大长度时截断并追加截断标记
+     *
+     * @param content   数据（可超过最大长度）
+     * @param totalSize 数据总大小，未知传 -1
+     * @param charset   编码
+     * @return 字符串
+     */
+    public String truncate(byte[] content, long totalSize, Charset charset) {
+        if (content.length <= maxPayloadSize && totalSize <= content.length) {
+            return new String(content, charset);
+        }
+        String prefix = new String(content, 0, Math.min(content.length, maxPayloadSize), charset);
+        return totalSize > maxPayloadSize
+                ? prefix + "...[已截断，共 " + totalSize + " 字节]"
+                : prefix + "...[已截断]";
+    }
+
+    /**
+     * 序列化为 JSON，超过最大长度时中断序列化并截断
+     *
+     * @param jsonMapper jsonMapper
+     * @param value      数据
+     * @return JSON
+     */
+    public String toJson(ObjectMapper jsonMapper, Object value) {
+        TruncatingOutputStream outputStream = write(jsonMapper, value);
+        return outputStream.isTruncated()
+                ? truncate(outputStream.toByteArray(), -1, StandardCharsets.UTF_8)
+                : new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 转为可嵌入访问日志的数据
+     *
+     * @param jsonMapper jsonMapper
+     * @param value      数据
+     * @return 未超过最大长度时返回原始 JSON，否则返回截断后的字符串
+     */
+    public Object toLoggable(ObjectMapper jsonMapper, Object value) {
+        if (value == null) {
+            return null;
+        }
+        TruncatingOutputStream outputStream = write(jsonMapper, value);
+        return outputStream.isTruncated()
+                ? truncate(outputStream.toByteArray(), -1, StandardCharsets.UTF_8)
+                : new RawValue(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 序列化至定长输出流，最多保留最大长度 + 1 个字节用于判断是否截断
+     *
+     * @param jsonMapper jsonMapper
+     * @param value      数据
+     * @return 定长输出流
+     */
+    private TruncatingOutputStream write(ObjectMapper jsonMapper, Object value) {
+        TruncatingOutputStream outputStream = new TruncatingOutputStream(maxPayloadSize + 1);
+        try {
+            jsonMapper.writeValue(outputStream, value);
+        } catch (IOException e) {
+            if (!outputStream.isTruncated()) {
+                throw new IllegalStateException("序列化失败：" + e.getLocalizedMessage(), e);
+            }
+        }
+        return outputStream;
+    }
+
+}
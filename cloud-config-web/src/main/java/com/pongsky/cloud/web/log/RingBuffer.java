@@ -0,0 +1,134 @@
+package com.pongsky.cloud.web.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形队列（多生产者、单消费者）
+ * <p>
+ * 每个槽位带有序号：序号等于写入位置时可写，等于写入位置 + 1 时可读，
+ * 生产者只需一次 CAS 占用写入位置，队列已满时直接返回 false，不会阻塞请求线程
+ *
+ * @param <E> 元素类型
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public class RingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * 槽位序号
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * 写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 读取位置（仅消费者线程修改）
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入元素
+     *
+     * @param element 元素
+     * @return 是否写入成功，队列已满返回 false
+     */
+    public boolean offer(E element) {
+        for (; ; ) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 读取元素（仅允许单个消费者线程调用）
+     *
+     * @return 元素，队列为空返回 null
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * 批量读取元素（仅允许单个消费者线程调用）
+     *
+     * @param consumer 消费者
+     * @param limit    最大数量
+     * @return 读取数量
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        int count = 0;
+        E element;
+        while (count < limit && (element = poll()) != null) {
+            consumer.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 获取元素数量（近似值）
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        return (int) Math.max(0L, tail.get() - head);
+    }
+
+    /**
+     * 获取容量
+     *
+     * @return 容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+}
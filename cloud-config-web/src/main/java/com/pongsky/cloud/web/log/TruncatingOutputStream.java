@@ -0,0 +1,87 @@
+package com.pongsky.cloud.web.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 定长输出流
+ * <p>
+ * 只保留前 limit 个字节，超出时抛出 {@link LimitExceededException} 中断序列化，
+ * 大对象只会序列化到上限附近，不会完整序列化后再截断
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+class TruncatingOutputStream extends OutputStream {
+
+    private final byte[] buffer;
+
+    private int count;
+
+    /**
+     * 是否已截断
+     */
+    private boolean truncated;
+
+    TruncatingOutputStream(int limit) {
+        this.buffer = new byte[limit];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            truncated = true;
+            throw new LimitExceededException();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int size = Math.min(len, buffer.length - count);
+        System.arraycopy(b, off, buffer, count, size);
+        count += size;
+        if (size < len) {
+            truncated = true;
+            throw new LimitExceededException();
+        }
+    }
+
+    /**
+     * 是否已截断
+     *
+     * @return 是否已截断
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 获取已写入的字节
+     *
+     * @return 已写入的字节
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * 超出上限，不记录堆栈
+     */
+    static class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException() {
+            super("超出最大长度");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+    }
+
+}
@@ -1,7 +1,9 @@
 package com.pongsky.cloud.web.request;
 
-import com.auth0.jwt.JWT;
 import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.pongsky.cloud.security.DisabledUserRegistry;
+import com.pongsky.cloud.security.VerifiedTokenCache;
 import com.pongsky.cloud.utils.jwt.JwtUtils;
 import com.pongsky.cloud.utils.jwt.dto.AuthInfo;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -27,6 +29,13 @@ public class AuthUtils {
      */
     public static final String TOKEN_PREFIX = "Bearer ";
 
+    /**
+     * 当前请求已解析的用户信息（request attribute）
+     * <p>
+     * 一次请求内只解析、校验一次 Token，后续 filter、aspect、controller 直接复用
+     */
+    public static final String AUTH_INFO = AuthInfo.class.getName();
+
     /**
      * 获取用户信息
      *
@@ -34,9 +43,36 @@ public class AuthUtils {
      * @return 获取用户信息
      */
     public static AuthInfo getUser(HttpServletRequest request) {
+        Object authInfo = request.getAttribute(AUTH_INFO);
+        if (authInfo instanceof AuthInfo) {
+            return (AuthInfo) authInfo;
+        }
+        AuthInfo user = parseUser(request);
+        request.setAttribute(AUTH_INFO, user);
+        return user;
+    }
+
+    /**
+     * 解析并校验 Token，整个过程只解析一次 Token
+     *
+     * @param request request
+     * @return 用户信息，校验失败则返回公开用户
+     */
+    private static AuthInfo parseUser(HttpServletRequest request) {
+        String authorization = request.getHeader(AUTHORIZATION);
+        if (authorization == null) {
+            return AuthInfo.PUBLIC_INFO;
+        }
         try {
-            AuthInfo authInfo = getAuthUser(request);
-            return verifyToken(request) ? AuthInfo.PUBLIC_INFO : authInfo;
+            DecodedJWT jwt = VerifiedTokenCache.verify(authorization.replace(TOKEN_PREFIX, ""));
+            verifyScope(jwt);
+            Long userId = JwtUtils.getId(jwt);
+            if (DisabledUserRegistry.isDisabled(userId)) {
+                return AuthInfo.PUBLIC_INFO;
+            }
+            return new AuthInfo()
+                    .setId(userId)
+                    .setRole(JwtUtils.getRole(jwt));
         } catch (Exception e) {
             return AuthInfo.PUBLIC_INFO;
         }
@@ -49,10 +85,15 @@ public class AuthUtils {
      * @return 获取通过鉴权的用户信息
      */
     public static AuthInfo getAuthUser(HttpServletRequest request) {
-        String authorization = getAuthorization(request);
+        AuthInfo authInfo = getUser(request);
+        if (!authInfo.equals(AuthInfo.PUBLIC_INFO)) {
+            return authInfo;
+        }
+        // 未通过校验时按原有方式解析，以便抛出具体的访问凭证异常
+        DecodedJWT jwt = JwtUtils.getTokenBody(getAuthorization(request));
         return new AuthInfo()
-                .setId(JwtUtils.getId(authorization))
-                .setRole(JwtUtils.getRole(authorization));
+                .setId(JwtUtils.getId(jwt))
+                .setRole(JwtUtils.getRole(jwt));
     }
 
     /**
@@ -72,12 +113,7 @@ public class AuthUtils {
      * @return 校验过期时间（过期将会报错）
      */
     public static boolean verifyToken(HttpServletRequest request) {
-        try {
-            JWT.require(JwtUtils.ALGORITHM).build().verify(getAuthorization(request));
-            return false;
-        } catch (Exception e) {
-            return true;
-        }
+        return getUser(request).equals(AuthInfo.PUBLIC_INFO);
     }
 
     /**
@@ -88,7 +124,7 @@ public class AuthUtils {
      */
     public static boolean verifyToken(String token) {
         try {
-            JWT.require(JwtUtils.ALGORITHM).build().verify(token.replace(TOKEN_PREFIX, ""));
+            JwtUtils.verify(token.replace(TOKEN_PREFIX, ""));
             return false;
         } catch (Exception e) {
             return true;
@@ -106,18 +142,27 @@ public class AuthUtils {
                 .orElseThrow(() -> new BadCredentialsException("缺少访问凭证，请重新登录"))
                 .replace(TOKEN_PREFIX, "");
         try {
-            String active = JwtUtils.getActive(authorization);
-            if (!active.equals(SystemConfigUtils.getActive())) {
-                throw new BadCredentialsException("访问凭证已失效，请重新登录：错误 ACTIVE");
-            }
-            String application = JwtUtils.getApplication(authorization);
-            if (!application.equals(SystemConfigUtils.getApplicationName())) {
-                throw new BadCredentialsException("访问凭证已失效，请重新登录：错误 APPLICATION");
-            }
+            verifyScope(JwtUtils.getTokenBody(authorization));
         } catch (JWTDecodeException e) {
             throw new BadCredentialsException("访问凭证解析失败，请重新登录");
         }
         return authorization;
     }
 
+    /**
+     * 校验 Token 所属环境、应用
+     *
+     * @param jwt 已解析的载体
+     */
+    private static void verifyScope(DecodedJWT jwt) {
+        String active = JwtUtils.getActive(jwt);
+        if (!active.equals(SystemConfigUtils.getActive())) {
+            throw new BadCredentialsException("访问凭证已失效，请重新登录：错误 ACTIVE");
+        }
+        String application = JwtUtils.getApplication(jwt);
+        if (!application.equals(SystemConfigUtils.getApplicationName())) {
+            throw new BadCredentialsException("访问凭证已失效，请重新登录：错误 APPLICATION");
+        }
+    }
+
 }
@@ -0,0 +1,460 @@
+package com.pongsky.cloud.web.request;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+/**
+ * 客户端 IP 解析器
+ * <p>
+ * 只有直连地址属于可信代理时才读取 X-Forwarded-For、X-Real-IP：
+ * X-Forwarded-For 从右向左逐个跳过可信代理，第一个不可信的地址即为客户端 IP，查找过程按下标解析地址，不截取子串；
+ * 可信代理网段编译为 IPv4、IPv6 二进制前缀树。直连地址为本机回环地址时返回本机地址，本机地址只解析一次
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Slf4j
+public class ClientIpResolver {
+
+    /**
+     * 默认可信代理网段：回环地址、内网地址
+     */
+    public static final String DEFAULT_TRUSTED_PROXIES = "127.0.0.0/8,::1/128,"
+            + "10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,fc00::/7";
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private static final String X_REAL_IP = "X-Real-IP";
+
+    private static final String PREFIX_SEPARATOR = "/";
+
+    private static final int IPV4_LENGTH = 4;
+
+    private static final int IPV6_LENGTH = 16;
+
+    /**
+     * 可信代理网段
+     */
+    private final PrefixTrie trustedProxies = new PrefixTrie();
+
+    /**
+     * @param trustedProxies 可信代理网段列表，格式为 address/prefix，不带 prefix 时表示单个地址
+     */
+    public ClientIpResolver(String... trustedProxies) {
+        byte[] address = new byte[IPV6_LENGTH];
+        for (String trustedProxy : trustedProxies) {
+            if (StringUtils.isBlank(trustedProxy)) {
+                continue;
+            }
+            String cidr = trustedProxy.trim();
+            int index = cidr.indexOf(PREFIX_SEPARATOR);
+            int length = parse(cidr, 0, index >= 0 ? index : cidr.length(), address);
+            if (length < 0) {
+                throw new IllegalArgumentException("可信代理网段格式错误：" + cidr);
+            }
+            int prefixLength = length * Byte.SIZE;
+            if (index >= 0) {
+                try {
+                    prefixLength = Integer.parseInt(cidr.substring(index + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("可信代理网段格式错误：" + cidr, e);
+                }
+                if (prefixLength < 0 || prefixLength > length * Byte.SIZE) {
+                    throw new IllegalArgumentException("可信代理网段前缀长度错误：" + cidr);
+                }
+            }
+            this.trustedProxies.add(address, length, prefixLength);
+        }
+    }
+
+    /**
+     * 获取客户端 IP
+     *
+     * @param request request
+     * @return 客户端 IP
+     */
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        byte[] address = new byte[IPV6_LENGTH];
+        int length = parse(remoteAddr, 0, remoteAddr.length(), address);
+        if (length < 0) {
+            return remoteAddr;
+        }
+        boolean loopback = isLoopback(address, length);
+        if (trustedProxies.contains(address, length)) {
+            String forwardedFor = request.getHeader(X_FORWARDED_FOR);
+            if (StringUtils.isNotBlank(forwardedFor)) {
+                String clientIp = resolveForwardedFor(forwardedFor, address);
+                if (clientIp != null) {
+                    return clientIp;
+                }
+            } else {
+                String realIp = request.getHeader(X_REAL_IP);
+                if (realIp != null && parse(realIp, 0, realIp.length(), address) >= 0) {
+                    return host(realIp, 0, realIp.length());
+                }
+            }
+        }
+        return loopback ? LocalAddress.VALUE : remoteAddr;
+    }
+
+    /**
+     * 从右向左查找 X-Forwarded-For 中第一个不可信的地址，均为可信代理时返回最左侧的地址
+     * <p>
+     * 遇到无法解析的地址（如 unknown）时停止查找，返回其右侧最近的地址
+     *
+     * @param forwardedFor X-Forwarded-For
+     * @param address      地址缓冲区
+     * @return 客户端 IP，没有可用地址时返回 null
+     */
+    private String resolveForwardedFor(String forwardedFor, byte[] address) {
+        int lastStart = -1;
+        int lastEnd = -1;
+        int end = forwardedFor.length();
+        while (end >= 0) {
+            int comma = forwardedFor.lastIndexOf(',', end - 1);
+            int start = comma + 1;
+            while (start < end && Character.isWhitespace(forwardedFor.charAt(start))) {
+                start++;
+            }
+            int tokenEnd = end;
+            while (tokenEnd > start && Character.isWhitespace(forwardedFor.charAt(tokenEnd - 1))) {
+                tokenEnd--;
+            }
+            end = comma;
+            if (start == tokenEnd) {
+                continue;
+            }
+            int length = parse(forwardedFor, start, tokenEnd, address);
+            if (length < 0) {
+                break;
+            }
+            if (!trustedProxies.contains(address, length)) {
+                return host(forwardedFor, start, tokenEnd);
+            }
+            lastStart = start;
+            lastEnd = tokenEnd;
+        }
+        return lastStart >= 0 ? host(forwardedFor, lastStart, lastEnd) : null;
+    }
+
+    /**
+     * 截取地址，去除 IPv6 方括号、端口号
+     *
+     * @param s     字符串
+     * @param start 开始下标
+     * @param end   结束下标
+     * @return 地址
+     */
+    private static String host(String s, int start, int end) {
+        if (s.charAt(start) == '[') {
+            return s.substring(start + 1, indexOf(s, ']', start + 1, end));
+        }
+        int colon = indexOf(s, ':', start, end);
+        if (colon >= 0 && indexOf(s, ':', colon + 1, end) < 0) {
+            return s.substring(start, colon);
+        }
+        return start == 0 && end == s.length() ? s : s.substring(start, end);
+    }
+
+    /**
+     * 是否为回环地址
+     *
+     * @param address 地址
+     * @param length  地址长度
+     * @return 是否为回环地址
+     */
+    private static boolean isLoopback(byte[] address, int length) {
+        if (length == IPV4_LENGTH) {
+            return address[0] == 127;
+        }
+        for (int i = 0; i < IPV6_LENGTH - 1; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return address[IPV6_LENGTH - 1] == 1;
+    }
+
+    /**
+     * 解析 IP 地址，支持 IPv4、IPv6、[IPv6]:port、IPv4:port，IPv4 映射的 IPv6 地址解析为 IPv4
+     *
+     * @param s       字符串
+     * @param start   开始下标
+     * @param end     结束下标
+     * @param address 地址缓冲区，长度至少为 16
+     * @return 地址长度（4 或 16），无法解析时返回 -1
+     */
+    static int parse(CharSequence s, int start, int end, byte[] address) {
+        if (start >= end) {
+            return -1;
+        }
+        if (s.charAt(start) == '[') {
+            int close = indexOf(s, ']', start + 1, end);
+            return close < 0 ? -1 : parseIpv6(s, start + 1, close, address);
+        }
+        int colon = indexOf(s, ':', start, end);
+        if (colon < 0) {
+            return parseIpv4(s, start, end, address, 0) ? IPV4_LENGTH : -1;
+        }
+        if (indexOf(s, ':', colon + 1, end) < 0) {
+            return parseIpv4(s, start, colon, address, 0) ? IPV4_LENGTH : -1;
+        }
+        return parseIpv6(s, start, end, address);
+    }
+
+    /**
+     * 解析 IPv4 地址
+     *
+     * @param s       字符串
+     * @param start   开始下标
+     * @param end     结束下标
+     * @param address 地址缓冲区
+     * @param offset  写入位置
+     * @return 是否解析成功
+     */
+    private static boolean parseIpv4(CharSequence s, int start, int end, byte[] address, int offset) {
+        int octets = 0;
+        int i = start;
+        while (true) {
+            int value = 0;
+            int digits = 0;
+            while (i < end) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                i++;
+                if (++digits > 3) {
+                    return false;
+                }
+            }
+            if (digits == 0 || value > 255) {
+                return false;
+            }
+            address[offset + octets++] = (byte) value;
+            if (i == end) {
+                return octets == IPV4_LENGTH;
+            }
+            if (octets == IPV4_LENGTH || s.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * 解析 IPv6 地址，忽略 zone id
+     *
+     * @param s       字符串
+     * @param start   开始下标
+     * @param end     结束下标
+     * @param address 地址缓冲区
+     * @return 地址长度（4 或 16），无法解析时返回 -1
+     */
+    private static int parseIpv6(CharSequence s, int start, int end, byte[] address) {
+        int percent = indexOf(s, '%', start, end);
+        if (percent >= 0) {
+            end = percent;
+        }
+        if (end - start < 2) {
+            return -1;
+        }
+        int groups = 0;
+        int compressAt = -1;
+        int i = start;
+        if (s.charAt(i) == ':') {
+            if (s.charAt(i + 1) != ':') {
+                return -1;
+            }
+            compressAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            if (groups == IPV6_LENGTH / 2) {
+                return -1;
+            }
+            int groupStart = i;
+            int value = 0;
+            while (i < end && i - groupStart < 5) {
+                int digit = hexDigit(s.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                value = value << 4 | digit;
+                i++;
+            }
+            if (i < end && s.charAt(i) == '.') {
+                // 内嵌 IPv4 地址，占两组
+                if (groups > 6 || !parseIpv4(s, groupStart, end, address, groups * 2)) {
+                    return -1;
+                }
+                groups += 2;
+                break;
+            }
+            if (i == groupStart || i - groupStart > 4) {
+                return -1;
+            }
+            address[groups * 2] = (byte) (value >> 8);
+            address[groups * 2 + 1] = (byte) value;
+            groups++;
+            if (i == end) {
+                break;
+            }
+            if (s.charAt(i++) != ':' || i == end) {
+                return -1;
+            }
+            if (s.charAt(i) == ':') {
+                if (compressAt >= 0) {
+                    return -1;
+                }
+                compressAt = groups;
+                i++;
+            }
+        }
+        if (compressAt < 0) {
+            if (groups != IPV6_LENGTH / 2) {
+                return -1;
+            }
+        } else {
+            if (groups == IPV6_LENGTH / 2) {
+                return -1;
+            }
+            // 将 :: 之后的组移至末尾，中间补 0
+            int tail = (groups - compressAt) * 2;
+            System.arraycopy(address, compressAt * 2, address, IPV6_LENGTH - tail, tail);
+            Arrays.fill(address, compressAt * 2, IPV6_LENGTH - tail, (byte) 0);
+        }
+        // IPv4 映射地址 ::ffff:a.b.c.d
+        for (int j = 0; j < 10; j++) {
+            if (address[j] != 0) {
+                return IPV6_LENGTH;
+            }
+        }
+        if (address[10] == (byte) 0xff && address[11] == (byte) 0xff) {
+            System.arraycopy(address, 12, address, 0, IPV4_LENGTH);
+            return IPV4_LENGTH;
+        }
+        return IPV6_LENGTH;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 本机地址，首次使用时解析一次
+     */
+    private static class LocalAddress {
+
+        private static final String VALUE = resolve();
+
+        private static String resolve() {
+            try {
+                return InetAddress.getLocalHost().getHostAddress();
+            } catch (UnknownHostException e) {
+                log.warn("获取本机地址失败，使用回环地址：{}", e.getLocalizedMessage());
+                return InetAddress.getLoopbackAddress().getHostAddress();
+            }
+        }
+
+    }
+
+    /**
+     * 二进制前缀树，IPv4、IPv6 各自一个根节点，节点以数组存储
+     */
+    private static class PrefixTrie {
+
+        private static final int IPV4_ROOT = 0;
+
+        private static final int IPV6_ROOT = 1;
+
+        private int[] zero = new int[16];
+
+        private int[] one = new int[16];
+
+        /**
+         * 节点是否为网段终点，终点之下的地址均在网段内
+         */
+        private boolean[] terminal = new boolean[16];
+
+        private int size = 2;
+
+        private PrefixTrie() {
+            Arrays.fill(zero, -1);
+            Arrays.fill(one, -1);
+        }
+
+        private void add(byte[] address, int length, int prefixLength) {
+            int node = length == IPV4_LENGTH ? IPV4_ROOT : IPV6_ROOT;
+            for (int bit = 0; bit < prefixLength && !terminal[node]; bit++) {
+                int[] children = isSet(address, bit) ? one : zero;
+                if (children[node] < 0) {
+                    int child = newNode();
+                    // 扩容后需重新获取子节点数组
+                    children = isSet(address, bit) ? one : zero;
+                    children[node] = child;
+                }
+                node = children[node];
+            }
+            terminal[node] = true;
+        }
+
+        private boolean contains(byte[] address, int length) {
+            int node = length == IPV4_LENGTH ? IPV4_ROOT : IPV6_ROOT;
+            int bits = length * Byte.SIZE;
+            for (int bit = 0; bit < bits; bit++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                node = isSet(address, bit) ? one[node] : zero[node];
+                if (node < 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+
+        private int newNode() {
+            if (size == zero.length) {
+                int capacity = size << 1;
+                zero = Arrays.copyOf(zero, capacity);
+                one = Arrays.copyOf(one, capacity);
+                terminal = Arrays.copyOf(terminal, capacity);
+                Arrays.fill(zero, size, capacity, -1);
+                Arrays.fill(one, size, capacity, -1);
+            }
+            return size++;
+        }
+
+        private static boolean isSet(byte[] address, int bit) {
+            return (address[bit >>> 3] & (0x80 >>> (bit & 7))) != 0;
+        }
+
+    }
+
+}
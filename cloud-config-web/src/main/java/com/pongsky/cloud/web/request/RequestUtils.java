@@ -1,6 +1,8 @@
 package com.pongsky.cloud.web.request;
 
+import com.pongsky.cloud.web.filter.RequestWrapper;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.util.WebUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.BufferedReader;
@@ -20,6 +22,11 @@ public class RequestUtils {
      * @return 获取body数据
      */
     public static String getBody(HttpServletRequest request) {
+        RequestWrapper requestWrapper = WebUtils.getNativeRequest(request, RequestWrapper.class);
+        if (requestWrapper != null) {
+            String body = requestWrapper.getBody();
+            return StringUtils.isNotBlank(body) ? body : null;
+        }
         StringBuilder stringBuilder = new StringBuilder();
         try {
             BufferedReader br = request.getReader();
@@ -0,0 +1,206 @@
+package com.pongsky.cloud.web.route;
+
+import com.pongsky.cloud.model.annotation.Route;
+import com.pongsky.cloud.model.emums.RouteType;
+import com.pongsky.cloud.response.annotation.ResponseResult;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 接口元数据
+ * <p>
+ * 每个接口方法只解析一次注解（见 {@link RouteMetadataRegistry}），请求中通过 {@link #ATTRIBUTE} 单个属性读取，
+ * 替代原先每次请求反射读取注解并逐个写入 request 属性的方式
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+public final class RouteMetadata {
+
+    /**
+     * request 属性名称
+     */
+    public static final String ATTRIBUTE = RouteMetadata.class.getName();
+
+    /**
+     * 映射注解，按优先级排列
+     */
+    private static final List<Class<? extends Annotation>> MAPPING_TYPES = List.of(
+            GetMapping.class,
+            PostMapping.class,
+            PutMapping.class,
+            DeleteMapping.class,
+            PatchMapping.class,
+            RequestMapping.class
+    );
+
+    /**
+     * 需要打印日志的映射注解
+     */
+    private static final Set<Class<? extends Annotation>> LOGGED_MAPPING_TYPES = Set.of(
+            PutMapping.class,
+            PostMapping.class,
+            DeleteMapping.class
+    );
+
+    /**
+     * 接口方法
+     */
+    private final Method method;
+
+    /**
+     * 映射注解，没有时为 null
+     */
+    private final Class<? extends Annotation> mappingType;
+
+    /**
+     * 接口类型
+     */
+    private final RouteType routeType;
+
+    /**
+     * 是否封装为全局响应数据
+     */
+    private final boolean wrapped;
+
+    /**
+     * 是否打印请求日志
+     */
+    private final boolean logged;
+
+    /**
+     * 方法与类上的注解类型
+     */
+    private final Set<Class<? extends Annotation>> annotationTypes;
+
+    private RouteMetadata(Method method, Class<? extends Annotation> mappingType, RouteType routeType,
+                          boolean wrapped, boolean logged, Set<Class<? extends Annotation>> annotationTypes) {
+        this.method = method;
+        this.mappingType = mappingType;
+        this.routeType = routeType;
+        this.wrapped = wrapped;
+        this.logged = logged;
+        this.annotationTypes = annotationTypes;
+    }
+
+    /**
+     * 解析接口方法的注解
+     *
+     * @param method   接口方法
+     * @param beanType 接口所在类
+     * @return 接口元数据
+     */
+    static RouteMetadata of(Method method, Class<?> beanType) {
+        Class<? extends Annotation> mappingType = MAPPING_TYPES.stream()
+                .filter(method::isAnnotationPresent)
+                .findFirst()
+                .orElse(null);
+        Set<Class<? extends Annotation>> annotationTypes = new HashSet<>();
+        for (Annotation annotation : method.getAnnotations()) {
+            annotationTypes.add(annotation.annotationType());
+        }
+        for (Annotation annotation : beanType.getAnnotations()) {
+            annotationTypes.add(annotation.annotationType());
+        }
+        Route route = AnnotatedElementUtils.findMergedAnnotation(method, Route.class);
+        if (route == null) {
+            route = AnnotatedElementUtils.findMergedAnnotation(beanType, Route.class);
+        }
+        RouteType routeType = route != null ? route.value() : RouteType.PROTECTED;
+        // 探针接口不打印日志、不封装响应数据
+        return new RouteMetadata(method,
+                mappingType,
+                routeType,
+                routeType != RouteType.PROBE
+                        && (AnnotatedElementUtils.hasAnnotation(method, ResponseResult.class)
+                        || AnnotatedElementUtils.hasAnnotation(beanType, ResponseResult.class)),
+                routeType != RouteType.PROBE
+                        && mappingType != null && LOGGED_MAPPING_TYPES.contains(mappingType),
+                Set.copyOf(annotationTypes));
+    }
+
+    /**
+     * 获取当前请求的接口元数据
+     * <p>
+     * 首次获取时根据匹配到的接口方法查找并写入 request 属性，尚未匹配到接口方法时返回 null
+     *
+     * @param request request
+     * @return 接口元数据
+     */
+    public static RouteMetadata get(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod)) {
+            return null;
+        }
+        Method method = ((HandlerMethod) handler).getMethod();
+        Object attribute = request.getAttribute(ATTRIBUTE);
+        // 转发至其它接口（如 /error）时重新查找
+        if (attribute instanceof RouteMetadata && ((RouteMetadata) attribute).method.equals(method)) {
+            return (RouteMetadata) attribute;
+        }
+        RouteMetadata routeMetadata = RouteMetadataRegistry.get((HandlerMethod) handler);
+        request.setAttribute(ATTRIBUTE, routeMetadata);
+        return routeMetadata;
+    }
+
+    /**
+     * 获取映射注解
+     *
+     * @return 映射注解，没有时为 null
+     */
+    public Class<? extends Annotation> getMappingType() {
+        return mappingType;
+    }
+
+    /**
+     * 获取接口类型
+     *
+     * @return 接口类型
+     */
+    public RouteType getRouteType() {
+        return routeType;
+    }
+
+    /**
+     * 是否封装为全局响应数据（方法或类上有 {@link ResponseResult} 注解）
+     *
+     * @return 是否封装为全局响应数据
+     */
+    public boolean isWrapped() {
+        return wrapped;
+    }
+
+    /**
+     * 是否打印请求日志（PUT、POST、DELETE 注解）
+     *
+     * @return 是否打印请求日志
+     */
+    public boolean isLogged() {
+        return logged;
+    }
+
+    /**
+     * 方法或类上是否有指定注解，可用于对特定业务场景进行特殊处理
+     *
+     * @param annotationType 注解类型
+     * @return 方法或类上是否有指定注解
+     */
+    public boolean hasAnnotation(Class<? extends Annotation> annotationType) {
+        return annotationTypes.contains(annotationType);
+    }
+
+}
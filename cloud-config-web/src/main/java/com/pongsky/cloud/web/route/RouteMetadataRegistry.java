@@ -0,0 +1,136 @@
+package com.pongsky.cloud.web.route;
+
+import com.pongsky.cloud.model.emums.RouteType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 接口元数据注册表
+ * <p>
+ * 启动时为所有接口方法解析一次 {@link RouteMetadata}，之后动态注册的接口在首次请求时解析；
+ * 同时根据接口路径生成接口类型表，供匹配到接口之前的 filter 判断是否可以跳过鉴权等处理，
+ * 未登记的路径均为 {@link RouteType#PROTECTED}
+ *
+ * @author pengsenhao
+ * @create 2021-02-18
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteMetadataRegistry implements SmartInitializingSingleton {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    /**
+     * 接口方法 - 接口元数据
+     */
+    private static final ConcurrentMap<Method, RouteMetadata> ROUTES = new ConcurrentHashMap<>();
+
+    /**
+     * 路径 - 接口类型
+     */
+    private static volatile Map<String, RouteType> exactRouteTypes = Map.of();
+
+    /**
+     * 路径模板 - 接口类型，路径模板均需鉴权时为空
+     */
+    private static volatile Map<String, RouteType> patternRouteTypes = Map.of();
+
+    private final ApplicationContext applicationContext;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, RouteType> exact = new HashMap<>();
+        Map<String, RouteType> patterns = new HashMap<>();
+        applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values()
+                .forEach(handlerMapping -> handlerMapping.getHandlerMethods().forEach((info, handlerMethod) -> {
+                    RouteType routeType = get(handlerMethod).getRouteType();
+                    for (String pattern : info.getPatternsCondition().getPatterns()) {
+                        Map<String, RouteType> routeTypes = PATH_MATCHER.isPattern(pattern) ? patterns : exact;
+                        routeTypes.merge(pattern, routeType, RouteMetadataRegistry::max);
+                    }
+                }));
+        exactRouteTypes = Map.copyOf(exact);
+        // 路径模板均需鉴权时无需匹配
+        patternRouteTypes = patterns.containsValue(RouteType.PROBE) || patterns.containsValue(RouteType.PUBLIC)
+                ? Map.copyOf(patterns)
+                : Map.of();
+        log.info("已解析 {} 个接口元数据", ROUTES.size());
+    }
+
+    /**
+     * 获取接口元数据
+     *
+     * @param handlerMethod 接口方法
+     * @return 接口元数据
+     */
+    public static RouteMetadata get(HandlerMethod handlerMethod) {
+        return get(handlerMethod.getMethod(), handlerMethod.getBeanType());
+    }
+
+    /**
+     * 获取接口元数据
+     *
+     * @param method   接口方法
+     * @param beanType 接口所在类
+     * @return 接口元数据
+     */
+    public static RouteMetadata get(Method method, Class<?> beanType) {
+        RouteMetadata routeMetadata = ROUTES.get(method);
+        if (routeMetadata != null) {
+            return routeMetadata;
+        }
+        return ROUTES.computeIfAbsent(method, key -> RouteMetadata.of(method, beanType));
+    }
+
+    /**
+     * 根据请求路径获取接口类型（匹配到接口之前使用）
+     * <p>
+     * 路径同时匹配多个接口时取限制程度最高的类型，未匹配到接口时返回 {@link RouteType#PROTECTED}
+     *
+     * @param request request
+     * @return 接口类型
+     */
+    public static RouteType getRouteType(HttpServletRequest request) {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        RouteType routeType = exactRouteTypes.get(path);
+        for (Map.Entry<String, RouteType> entry : patternRouteTypes.entrySet()) {
+            if (routeType == RouteType.PROTECTED) {
+                break;
+            }
+            if (PATH_MATCHER.match(entry.getKey(), path)) {
+                routeType = routeType != null ? max(routeType, entry.getValue()) : entry.getValue();
+            }
+        }
+        return routeType != null ? routeType : RouteType.PROTECTED;
+    }
+
+    /**
+     * 获取限制程度更高的接口类型
+     *
+     * @param first  接口类型
+     * @param second 接口类型
+     * @return 限制程度更高的接口类型
+     */
+    private static RouteType max(RouteType first, RouteType second) {
+        return first.compareTo(second) >= 0 ? first : second;
+    }
+
+}
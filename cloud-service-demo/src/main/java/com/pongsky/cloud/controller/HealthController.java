@@ -1,5 +1,7 @@
 package com.pongsky.cloud.controller;
 
+import com.pongsky.cloud.model.annotation.Route;
+import com.pongsky.cloud.model.emums.RouteType;
 import com.pongsky.cloud.response.annotation.ResponseResult;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @ResponseResult
 @RestController
+@Route(RouteType.PROBE)
 @RequestMapping("/health")
 public class HealthController {
 
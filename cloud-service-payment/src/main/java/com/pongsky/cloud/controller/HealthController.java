@@ -1,5 +1,7 @@
 package com.pongsky.cloud.controller;
 
+import com.pongsky.cloud.model.annotation.Route;
+import com.pongsky.cloud.model.emums.RouteType;
 import com.pongsky.cloud.response.annotation.ResponseResult;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @ResponseResult
 @RestController
+@Route(RouteType.PROBE)
 @RequestMapping(value = "/health", produces = MediaType.APPLICATION_JSON_VALUE)
 public class HealthController {
 
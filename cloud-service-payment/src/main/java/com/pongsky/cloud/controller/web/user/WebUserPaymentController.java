@@ -1,6 +1,8 @@
 package com.pongsky.cloud.controller.web.user;
 
 import com.pongsky.cloud.entity.payment.dto.PaymentDto;
+import com.pongsky.cloud.model.annotation.RateLimited;
+import com.pongsky.cloud.model.emums.RateLimitKey;
 import com.pongsky.cloud.response.annotation.ResponseResult;
 import com.pongsky.cloud.service.PaymentService;
 import com.pongsky.cloud.utils.jwt.enums.AuthRole;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 支付信息模块
@@ -39,6 +42,7 @@ public class WebUserPaymentController {
      * @param paymentDto 支付信息
      */
     @PostMapping
+    @RateLimited(key = RateLimitKey.USER, permits = 10, period = 1, timeUnit = TimeUnit.MINUTES)
     public void save(HttpServletRequest request,
                      @Validated({CreateGroup.class}) @RequestBody PaymentDto paymentDto) {
         Long userId = AuthUtils.getAuthUserId(request);
@@ -6,6 +6,8 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 /**
  * @author pengsenhao
  * @create 2021-02-11
@@ -23,6 +25,21 @@ public interface PaymentMapper {
             "value(#{data.id},#{data.product},#{data.serial},#{data.dataVersion},#{data.createdAt},#{data.userId}) ")
     Integer save(@Param("data") Payment payment);
 
+    /**
+     * 批量保存支付信息
+     *
+     * @param payments 支付信息
+     * @return 批量保存支付信息
+     */
+    @Insert("<script>" +
+            "insert `payment`(id,product,serial,data_version,created_at,user_id) " +
+            "values " +
+            "<foreach collection = 'list' item = 'data' separator = ','>" +
+            "(#{data.id},#{data.product},#{data.serial},#{data.dataVersion},#{data.createdAt},#{data.userId})" +
+            "</foreach>" +
+            "</script>")
+    Integer saveAll(@Param("list") List<Payment> payments);
+
     /**
      * 根据序列号和用户ID查询总数
      *
@@ -13,6 +13,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author pengsenhao
@@ -42,6 +44,30 @@ public class PaymentService {
         InsertException.validation("支付信息保存失败", paymentMapper.save(payment));
     }
 
+    /**
+     * 批量保存支付信息
+     *
+     * @param userId      用户ID
+     * @param paymentDtos 支付信息
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void saveAll(Long userId, List<PaymentDto> paymentDtos) {
+        if (paymentDtos.isEmpty()) {
+            return;
+        }
+        long[] ids = snowFlakeUtils.getIds(paymentDtos.size());
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> payments = new ArrayList<>(paymentDtos.size());
+        for (int i = 0; i < paymentDtos.size(); i++) {
+            payments.add(mapperFacade.map(paymentDtos.get(i), Payment.class)
+                    .setId(ids[i])
+                    .setDataVersion(0L)
+                    .setCreatedAt(now)
+                    .setUserId(userId));
+        }
+        InsertException.validation("支付信息保存失败", paymentMapper.saveAll(payments), payments.size());
+    }
+
     /**
      * 根据序列号和用户ID检验是否存在
      *
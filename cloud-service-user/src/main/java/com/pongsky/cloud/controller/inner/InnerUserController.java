@@ -0,0 +1,43 @@
+package com.pongsky.cloud.controller.inner;
+
+import com.pongsky.cloud.entity.user.vo.UserDisableVo;
+import com.pongsky.cloud.response.annotation.ResponseResult;
+import com.pongsky.cloud.service.UserService;
+import com.pongsky.cloud.utils.jwt.enums.AuthRole;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 服务间调用用户模块
+ * <p>
+ * 仅允许携带服务间调用 Token 的请求访问，见 {@code InnerFeignConfig}
+ *
+ * @author pengsenhao
+ * @create 2021-02-16
+ */
+@ResponseResult
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/inner/user", produces = MediaType.APPLICATION_JSON_VALUE)
+@PreAuthorize("hasRole('" + AuthRole.INNER_ROLE + "')")
+public class InnerUserController {
+
+    private final UserService userService;
+
+    /**
+     * 查看用户禁用状态变更
+     *
+     * @param cursor 游标（毫秒时间戳），为空则查看全量
+     * @return 查看用户禁用状态变更
+     */
+    @GetMapping("/disable")
+    public UserDisableVo queryDisable(@RequestParam(required = false) Long cursor) {
+        return userService.queryDisable(cursor);
+    }
+
+}
@@ -3,6 +3,8 @@ package com.pongsky.cloud.controller.web.admin;
 import com.pongsky.cloud.entity.user.dto.RefreshTokenLoginDto;
 import com.pongsky.cloud.entity.user.dto.UserDto;
 import com.pongsky.cloud.entity.user.vo.UserVo;
+import com.pongsky.cloud.model.annotation.Route;
+import com.pongsky.cloud.model.emums.RouteType;
 import com.pongsky.cloud.response.annotation.ResponseResult;
 import com.pongsky.cloud.service.UserService;
 import com.pongsky.cloud.utils.jwt.JwtUtils;
@@ -25,6 +27,7 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @ResponseResult
 @RestController
+@Route(RouteType.PUBLIC)
 @RequiredArgsConstructor
 @RequestMapping(value = "/web/admin/login", produces = MediaType.APPLICATION_JSON_VALUE)
 public class WebAdminLoginController {
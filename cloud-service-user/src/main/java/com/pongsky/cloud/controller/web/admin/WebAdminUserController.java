@@ -7,6 +7,7 @@ import com.pongsky.cloud.exception.ValidationException;
 import com.pongsky.cloud.model.dto.PageQuery;
 import com.pongsky.cloud.model.vo.PageResponse;
 import com.pongsky.cloud.response.annotation.ResponseResult;
+import com.pongsky.cloud.security.DisabledUserRegistry;
 import com.pongsky.cloud.service.UserService;
 import com.pongsky.cloud.utils.jwt.enums.AuthRole;
 import com.pongsky.cloud.validator.SearchGroup;
@@ -69,6 +70,7 @@ public class WebAdminUserController {
         }
         userService.existsByUserId(userId);
         userService.disable(userId, userDisableDto.getIsDisable());
+        DisabledUserRegistry.update(userId, userDisableDto.getIsDisable() == 1);
     }
 
 }
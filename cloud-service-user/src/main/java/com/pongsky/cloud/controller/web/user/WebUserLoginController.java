@@ -3,6 +3,10 @@ package com.pongsky.cloud.controller.web.user;
 import com.pongsky.cloud.entity.user.dto.RefreshTokenLoginDto;
 import com.pongsky.cloud.entity.user.dto.UserDto;
 import com.pongsky.cloud.entity.user.vo.UserVo;
+import com.pongsky.cloud.model.annotation.RateLimited;
+import com.pongsky.cloud.model.annotation.Route;
+import com.pongsky.cloud.model.emums.RateLimitKey;
+import com.pongsky.cloud.model.emums.RouteType;
 import com.pongsky.cloud.response.annotation.ResponseResult;
 import com.pongsky.cloud.service.UserService;
 import com.pongsky.cloud.utils.jwt.JwtUtils;
@@ -18,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 登录模块
  *
@@ -26,6 +32,8 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @ResponseResult
 @RestController
+@Route(RouteType.PUBLIC)
+@RateLimited(key = RateLimitKey.IP, permits = 20, period = 1, timeUnit = TimeUnit.MINUTES)
 @RequiredArgsConstructor
 @RequestMapping(value = "/web/user/login", produces = MediaType.APPLICATION_JSON_VALUE)
 public class WebUserLoginController {
@@ -1,6 +1,7 @@
 package com.pongsky.cloud.mapper;
 
 import com.pongsky.cloud.entity.User;
+import com.pongsky.cloud.entity.user.dos.UserDisableDo;
 import com.pongsky.cloud.entity.user.dos.UserDo;
 import com.pongsky.cloud.entity.user.dto.SearchUserDto;
 import com.pongsky.cloud.entity.user.dto.UserDto;
@@ -12,6 +13,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,7 +40,7 @@ public interface UserMapper {
      * @param username 用户名
      * @return 根据用户名查询用户信息
      */
-    @Select("select u.id,u.role,u.username,u.password,u.name,u.phone " +
+    @Select("select u.id,u.role,u.username,u.password,u.name,u.phone,u.is_disable,u.data_version " +
             "from `user` u " +
             "where u.username = #{username} ")
     Optional<UserDo> findByUsername(@Param("username") String username);
@@ -71,7 +73,7 @@ public interface UserMapper {
      * @param userId 用户ID
      * @return 根据用户ID查看个人信息
      */
-    @Select("select u.id,u.role,u.username,u.name,u.phone " +
+    @Select("select u.id,u.role,u.username,u.name,u.phone,u.is_disable " +
             "from `user` u " +
             "where u.id = #{userId} ")
     Optional<UserDo> findById(@Param("userId") Long userId);
@@ -107,6 +109,24 @@ public interface UserMapper {
                        @Param("dataVersion") Long dataVersion,
                        @Param("data") UserDto userDto);
 
+    /**
+     * 根据用户ID和数据版本号修改密码
+     *
+     * @param userId      用户ID
+     * @param dataVersion 数据版本号
+     * @param password    加密后的密码
+     * @return 根据用户ID和数据版本号修改密码
+     */
+    @Update("update `user` " +
+            "set updated_at = now() " +
+            ",data_version = #{dataVersion} + 1 " +
+            ",password = #{password} " +
+            "where id = #{userId} " +
+            "and data_version = #{dataVersion} ")
+    Integer updatePasswordById(@Param("userId") Long userId,
+                               @Param("dataVersion") Long dataVersion,
+                               @Param("password") String password);
+
     /**
      * 根据用户名和用户ID查询总数
      *
@@ -188,4 +208,35 @@ public interface UserMapper {
                                 @Param("dataVersion") Long dataVersion,
                                 @Param("isDisable") Integer isDisable);
 
+    /**
+     * 根据是否禁用查询用户ID
+     *
+     * @param isDisable 是否禁用
+     * @return 根据是否禁用查询用户ID
+     */
+    @Select("select u.id " +
+            "from `user` u " +
+            "where u.is_disable = #{isDisable} ")
+    List<Long> findIdByIsDisable(@Param("isDisable") Integer isDisable);
+
+    /**
+     * 查询最大修改时间
+     *
+     * @return 查询最大修改时间
+     */
+    @Select("select max(u.updated_at) " +
+            "from `user` u ")
+    Optional<LocalDateTime> findMaxUpdatedAt();
+
+    /**
+     * 根据修改时间查询禁用状态
+     *
+     * @param updatedAt 修改时间（包含）
+     * @return 根据修改时间查询禁用状态
+     */
+    @Select("select u.id,u.is_disable,u.updated_at " +
+            "from `user` u " +
+            "where u.updated_at >= #{updatedAt} ")
+    List<UserDisableDo> findDisableByUpdatedAt(@Param("updatedAt") LocalDateTime updatedAt);
+
 }
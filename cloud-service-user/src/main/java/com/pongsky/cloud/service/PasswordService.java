@@ -0,0 +1,168 @@
+package com.pongsky.cloud.service;
+
+import com.pongsky.cloud.exception.FrequencyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码加密、校验
+ * <p>
+ * BCrypt 计算在独立的有界线程池中执行（线程数默认等于 CPU 核数），
+ * 队列已满或等待超时直接抛出频率异常，避免登录高峰占满 Tomcat 工作线程
+ *
+ * @author pengsenhao
+ * @create 2021-02-17
+ */
+@Slf4j
+@Service
+public class PasswordService implements DisposableBean {
+
+    /**
+     * 繁忙提示
+     */
+    private static final String BUSY_MESSAGE = "当前登录人数过多，请稍后重试";
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    /**
+     * BCrypt 线程池
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 等待超时时间
+     */
+    private final Duration timeout;
+
+    /**
+     * 计算耗时
+     */
+    private final Timer hashTimer;
+
+    /**
+     * 拒绝次数
+     */
+    private final Counter rejectedCounter;
+
+    public PasswordService(BCryptPasswordEncoder bCryptPasswordEncoder,
+                           MeterRegistry meterRegistry,
+                           @Value("${application.password.pool-size:0}") int poolSize,
+                           @Value("${application.password.queue-capacity:0}") int queueCapacity,
+                           @Value("${application.password.timeout:3s}") Duration timeout) {
+        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.timeout = timeout;
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        int capacity = queueCapacity > 0 ? queueCapacity : threads * 4;
+        AtomicInteger number = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-" + number.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.hashTimer = Timer.builder("password.hash")
+                .description("BCrypt 计算耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.rejected")
+                .description("BCrypt 线程池拒绝次数")
+                .register(meterRegistry);
+        Gauge.builder("password.queue", executor, e -> e.getQueue().size())
+                .description("BCrypt 线程池排队数量")
+                .register(meterRegistry);
+        Gauge.builder("password.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("BCrypt 线程池活跃线程数")
+                .register(meterRegistry);
+        log.info("BCrypt 线程池：线程数 [{}] 队列容量 [{}]", threads, capacity);
+    }
+
+    /**
+     * 密码加密
+     *
+     * @param rawPassword 明文密码
+     * @return 密码加密
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> bCryptPasswordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 密码校验
+     *
+     * @param rawPassword     明文密码
+     * @param encodedPassword 加密密码
+     * @return 密码校验
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 已加密密码是否需要以当前强度重新加密
+     *
+     * @param encodedPassword 加密密码
+     * @return 是否需要重新加密
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bCryptPasswordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 在 BCrypt 线程池中执行并等待结果
+     *
+     * @param task 任务
+     * @param <T>  结果类型
+     * @return 结果
+     */
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new FrequencyException(BUSY_MESSAGE);
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new FrequencyException(BUSY_MESSAGE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new FrequencyException(BUSY_MESSAGE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause().getLocalizedMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+}
@@ -1,11 +1,14 @@
 package com.pongsky.cloud.service;
 
 import com.pongsky.cloud.entity.User;
+import com.pongsky.cloud.entity.user.dos.UserDisableDo;
 import com.pongsky.cloud.entity.user.dos.UserDo;
 import com.pongsky.cloud.entity.user.dto.SearchUserDto;
 import com.pongsky.cloud.entity.user.dto.UserDto;
+import com.pongsky.cloud.entity.user.vo.UserDisableVo;
 import com.pongsky.cloud.entity.user.vo.UserVo;
 import com.pongsky.cloud.exception.DoesNotExistException;
+import com.pongsky.cloud.exception.FrequencyException;
 import com.pongsky.cloud.exception.InsertException;
 import com.pongsky.cloud.exception.UpdateException;
 import com.pongsky.cloud.exception.ValidationException;
@@ -17,19 +20,30 @@ import com.pongsky.cloud.utils.jwt.enums.AuthRole;
 import com.pongsky.cloud.utils.snowflake.SnowFlakeUtils;
 import com.pongsky.cloud.web.request.SystemConfigUtils;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import ma.glasnost.orika.MapperFacade;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
+ * 用户信息
+ * <p>
+ * BCrypt 计算需在线程池中排队，涉及密码的方法均在事务外计算，只在写入时开启事务，
+ * 避免等待 BCrypt 线程池时占用数据库连接
+ *
  * @author pengsenhao
  * @create 2021-02-11
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
@@ -37,7 +51,18 @@ public class UserService {
     private final UserMapper userMapper;
     private final MapperFacade mapperFacade;
     private final SnowFlakeUtils snowFlakeUtils;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordService passwordService;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 禁用标识
+     */
+    private static final Integer DISABLE = 1;
+
+    /**
+     * 增量拉取禁用状态时，游标向前重叠的毫秒数，防止遗漏提交较晚的事务
+     */
+    private static final long CURSOR_OVERLAP_MILLIS = 5000L;
 
     /**
      * 注册
@@ -45,16 +70,17 @@ public class UserService {
      * @param userDto 注册信息
      * @return 注册
      */
-    @Transactional(rollbackFor = Exception.class)
     public UserVo registered(UserDto userDto) {
+        String password = passwordService.encode(userDto.getPassword());
         User user = mapperFacade.map(userDto, User.class)
                 .setId(snowFlakeUtils.getId())
                 .setRole(AuthRole.USER)
-                .setPassword(bCryptPasswordEncoder.encode(userDto.getPassword()))
+                .setPassword(password)
                 .setIsDisable(0)
                 .setDataVersion(0L)
                 .setCreatedAt(LocalDateTime.now());
-        InsertException.validation("用户信息保存失败", userMapper.save(user));
+        transactionTemplate.executeWithoutResult(status ->
+                InsertException.validation("用户信息保存失败", userMapper.save(user)));
         return mapperFacade.map(user, UserVo.class);
     }
 
@@ -64,16 +90,45 @@ public class UserService {
      * @param userDto 登录信息
      * @return 登录
      */
-    @Transactional(rollbackFor = Exception.class, readOnly = true)
     public UserVo login(UserDto userDto) {
         UserDo user = userMapper.findByUsername(userDto.getUsername())
                 .orElseThrow(() -> new DoesNotExistException("用户不存在"));
-        if (!bCryptPasswordEncoder.matches(userDto.getPassword(), user.getPassword())) {
+        if (!passwordService.matches(userDto.getPassword(), user.getPassword())) {
             throw new ValidationException("用户名或密码错误");
         }
+        existsByDisable(user);
+        upgradePassword(user, userDto.getPassword());
         return getAuthorization(user);
     }
 
+    /**
+     * 密码强度低于当前强度时重新加密
+     * <p>
+     * 重新加密不是必须的：BCrypt 线程池繁忙、保存失败时直接跳过；数据版本号已变更说明密码已被修改，同样跳过。
+     * 均不影响本次登录
+     *
+     * @param user        用户信息
+     * @param rawPassword 明文密码
+     */
+    private void upgradePassword(UserDo user, String rawPassword) {
+        if (!passwordService.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        String password;
+        try {
+            password = passwordService.encode(rawPassword);
+        } catch (FrequencyException e) {
+            log.info("BCrypt 线程池繁忙，跳过重新加密密码：{}", user.getId());
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    userMapper.updatePasswordById(user.getId(), user.getDataVersion(), password));
+        } catch (RuntimeException e) {
+            log.warn("重新加密密码保存失败，跳过：{} {}", user.getId(), e.getLocalizedMessage());
+        }
+    }
+
     /**
      * refresh 登录
      *
@@ -84,9 +139,21 @@ public class UserService {
     public UserVo refreshLogin(Long userId) {
         UserDo user = userMapper.findById(userId)
                 .orElseThrow(() -> new DoesNotExistException("用户不存在"));
+        existsByDisable(user);
         return getAuthorization(user);
     }
 
+    /**
+     * 校验用户是否已禁用
+     *
+     * @param user 用户信息
+     */
+    private void existsByDisable(UserDo user) {
+        if (DISABLE.equals(user.getIsDisable())) {
+            throw new ValidationException("用户已被禁用");
+        }
+    }
+
     /**
      * 获取访问凭证
      *
@@ -120,14 +187,15 @@ public class UserService {
      * @param userId  用户ID
      * @param userDto 修改后的用户信息
      */
-    @Transactional(rollbackFor = Exception.class)
     public void modifyInfo(Long userId, UserDto userDto) {
         if (StringUtils.isNotBlank(userDto.getPassword())) {
-            userDto.setPassword(bCryptPasswordEncoder.encode(userDto.getPassword()));
+            userDto.setPassword(passwordService.encode(userDto.getPassword()));
         }
-        Long dataVersion = userMapper.findDataVersionById(userId)
-                .orElseThrow(() -> new DoesNotExistException("数据版本号不存在"));
-        UpdateException.validation("用户信息更新失败", userMapper.updateById(userId, dataVersion, userDto));
+        transactionTemplate.executeWithoutResult(status -> {
+            Long dataVersion = userMapper.findDataVersionById(userId)
+                    .orElseThrow(() -> new DoesNotExistException("数据版本号不存在"));
+            UpdateException.validation("用户信息更新失败", userMapper.updateById(userId, dataVersion, userDto));
+        });
     }
 
     /**
@@ -188,4 +256,54 @@ public class UserService {
         UpdateException.validation("用户信息更新失败", userMapper.updateIsDisableById(userId, dataVersion, isDisable));
     }
 
+    /**
+     * 查看用户禁用状态变更
+     * <p>
+     * 游标为空则返回全部禁用用户ID，否则返回游标之后禁用状态发生变更的用户ID
+     *
+     * @param cursor 游标（毫秒时间戳）
+     * @return 查看用户禁用状态变更
+     */
+    @Transactional(rollbackFor = Exception.class, readOnly = true)
+    public UserDisableVo queryDisable(Long cursor) {
+        if (cursor == null) {
+            Long maxUpdatedAt = userMapper.findMaxUpdatedAt()
+                    .map(this::toMillis)
+                    .orElse(0L);
+            return new UserDisableVo()
+                    .setCursor(maxUpdatedAt)
+                    .setFull(true)
+                    .setDisabledIds(userMapper.findIdByIsDisable(DISABLE))
+                    .setEnabledIds(Collections.emptyList());
+        }
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(cursor - CURSOR_OVERLAP_MILLIS),
+                ZoneId.systemDefault());
+        List<Long> disabledIds = new ArrayList<>();
+        List<Long> enabledIds = new ArrayList<>();
+        long nextCursor = cursor;
+        for (UserDisableDo userDisableDo : userMapper.findDisableByUpdatedAt(since)) {
+            if (DISABLE.equals(userDisableDo.getIsDisable())) {
+                disabledIds.add(userDisableDo.getId());
+            } else {
+                enabledIds.add(userDisableDo.getId());
+            }
+            nextCursor = Math.max(nextCursor, toMillis(userDisableDo.getUpdatedAt()));
+        }
+        return new UserDisableVo()
+                .setCursor(nextCursor)
+                .setFull(false)
+                .setDisabledIds(disabledIds)
+                .setEnabledIds(enabledIds);
+    }
+
+    /**
+     * 时间转换为毫秒时间戳
+     *
+     * @param dateTime 时间
+     * @return 毫秒时间戳
+     */
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
 }